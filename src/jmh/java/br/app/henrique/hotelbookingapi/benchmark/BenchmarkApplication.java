@@ -0,0 +1,81 @@
+package br.app.henrique.hotelbookingapi.benchmark;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import br.app.henrique.hotelbookingapi.HotelBookingApiApplication;
+import br.app.henrique.hotelbookingapi.model.Room;
+
+final class BenchmarkApplication {
+	
+	private static final int SEED_BATCH_SIZE = 10000;
+	
+	private BenchmarkApplication() {
+	}
+	
+	static ConfigurableApplicationContext start(String... properties) {
+		//DevTools is on the classpath when run from the build, and would restart the application in main, without its arguments
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		Map<String, String> settings = new LinkedHashMap<>();
+		settings.put("server.port", "0");
+		settings.put("spring.jpa.show-sql", "false");
+		settings.put("logging.level.root", "WARN");
+		//The seeded history is all in the past, and must stay in the booking table while measured
+		settings.put("booking.archive.enabled", "false");
+		for(String property : properties) {
+			int separator = property.indexOf('=');
+			settings.put(property.substring(0, separator), property.substring(separator + 1));
+		}
+		//Passed as command line arguments, as default properties are overridden by application.properties and the profiles
+		String[] args = settings.entrySet().stream()
+				.map(setting -> "--" + setting.getKey() + "=" + setting.getValue())
+				.toArray(String[]::new);
+		return new SpringApplicationBuilder(HotelBookingApiApplication.class)
+				.bannerMode(Banner.Mode.OFF)
+				.logStartupInfo(false)
+				//Only a default, so the prod profile still uses its file database
+				.properties("spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1")
+				.run(args);
+	}
+	
+	static LocalDate firstSeededDay(int rows) {
+		return LocalDate.now().minusDays(2l * rows + 1);
+	}
+	
+	static void seedHistory(JdbcTemplate jdbcTemplate, int rows) {
+		//Two-day stays, back to back, all ending before today so the bookable window stays free
+		LocalDate firstDay = firstSeededDay(rows);
+		for(int offset = 0; offset < rows; offset += SEED_BATCH_SIZE) {
+			int first = offset;
+			int size = Math.min(SEED_BATCH_SIZE, rows - offset);
+			jdbcTemplate.batchUpdate("insert into booking (id, name, room_id, start_date, end_date) values (next value for booking_seq, ?, ?, ?, ?)",
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							LocalDate startDate = firstDay.plusDays(2l * (first + i));
+							ps.setString(1, "Guest " + (first + i));
+							ps.setLong(2, Room.DEFAULT_ROOM_ID);
+							ps.setDate(3, Date.valueOf(startDate));
+							ps.setDate(4, Date.valueOf(startDate.plusDays(1)));
+						}
+						
+						@Override
+						public int getBatchSize() {
+							return size;
+						}
+					});
+		}
+	}
+	
+}
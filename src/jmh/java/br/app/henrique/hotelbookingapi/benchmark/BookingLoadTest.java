@@ -0,0 +1,176 @@
+package br.app.henrique.hotelbookingapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+//Closed-loop HTTP load test: each client sends its next request as soon as the previous one is answered.
+//Usage: BookingLoadTest [--url=http://localhost:8080] [--clients=200] [--seconds=30] [--warmup=10]
+//                       [--scenario=check|availability|write|mixed] [--set=property=value ...]
+public class BookingLoadTest {
+	
+	private final String baseUrl;
+	private final int clients;
+	private final int seconds;
+	private final int warmupSeconds;
+	private final String scenario;
+	private final HttpClient httpClient;
+	
+	private final AtomicLong errors = new AtomicLong();
+	
+	private BookingLoadTest(String baseUrl, int clients, int seconds, int warmupSeconds, String scenario) {
+		this.baseUrl = baseUrl;
+		this.clients = clients;
+		this.seconds = seconds;
+		this.warmupSeconds = warmupSeconds;
+		this.scenario = scenario;
+		this.httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(10))
+				.executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+				.build();
+	}
+	
+	public static void main(String[] args) throws Exception {
+		String url = null;
+		int clients = 200;
+		int seconds = 30;
+		int warmupSeconds = 10;
+		String scenario = "mixed";
+		List<String> properties = new ArrayList<>();
+		for(String arg : args) {
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if(arg.startsWith("--url=")) url = value;
+			else if(arg.startsWith("--clients=")) clients = Integer.parseInt(value);
+			else if(arg.startsWith("--seconds=")) seconds = Integer.parseInt(value);
+			else if(arg.startsWith("--warmup=")) warmupSeconds = Integer.parseInt(value);
+			else if(arg.startsWith("--scenario=")) scenario = value;
+			else if(arg.startsWith("--set=")) properties.add(value);
+			else throw new IllegalArgumentException("Unknown argument: " + arg);
+		}
+		
+		ConfigurableApplicationContext context = null;
+		if(url==null) {
+			context = BenchmarkApplication.start(properties.toArray(new String[0]));
+			url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+		}
+		try {
+			new BookingLoadTest(url, clients, seconds, warmupSeconds, scenario).run();
+		} finally {
+			if(context!=null) context.close();
+			System.exit(0);
+		}
+	}
+	
+	private void run() throws InterruptedException {
+		System.out.printf("Load test: %s scenario, %d clients, %ds warmup, %ds measured, against %s%n",
+				scenario, clients, warmupSeconds, seconds, baseUrl);
+		drive(warmupSeconds);
+		errors.set(0);
+		long[] latencies = drive(seconds);
+		report(latencies);
+	}
+	
+	private long[] drive(int durationSeconds) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+		List<long[]> perClient = new ArrayList<>();
+		List<int[]> counts = new ArrayList<>();
+		for(int i = 0; i < clients; i++) {
+			long[][] latencies = { new long[1024] };
+			int[] count = { 0 };
+			counts.add(count);
+			executor.execute(() -> {
+				while(System.nanoTime() < deadline) {
+					long startTime = System.nanoTime();
+					send();
+					if(count[0]==latencies[0].length) latencies[0] = Arrays.copyOf(latencies[0], count[0] * 2);
+					latencies[0][count[0]++] = System.nanoTime() - startTime;
+				}
+				synchronized(perClient) {
+					perClient.add(Arrays.copyOf(latencies[0], count[0]));
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(durationSeconds + 60l, TimeUnit.SECONDS);
+		return perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+	}
+	
+	private void send() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int roll = random.nextInt(100);
+		try {
+			if("availability".equals(scenario) || ("mixed".equals(scenario) && roll < 10)) {
+				expect(get("/booking/availability"), 200);
+			} else if("check".equals(scenario) || ("mixed".equals(scenario) && roll < 90)) {
+				LocalDate startDate = LocalDate.now().plusDays(random.nextInt(1, 31));
+				expect(post("/booking/check", booking(startDate, startDate.plusDays(2))), 200);
+			} else {
+				//Creates and cancels; conflicts with other clients are expected and not errors
+				LocalDate startDate = LocalDate.now().plusDays(random.nextInt(1, 31));
+				HttpResponse<String> response = post("/booking/new", booking(startDate, startDate.plusDays(random.nextInt(0, 3))));
+				if(response.statusCode()==201) {
+					String body = response.body();
+					String id = body.substring(body.indexOf("\"id\":") + 5, body.indexOf(',', body.indexOf("\"id\":")));
+					expect(post("/booking/cancel/" + id.trim(), ""), 202);
+				} else {
+					expect(response, 409);
+				}
+			}
+		} catch (Exception e) {
+			errors.incrementAndGet();
+		}
+	}
+	
+	private String booking(LocalDate startDate, LocalDate endDate) {
+		return "{\"name\":\"Load test\",\"startDate\":\"" + startDate + "\",\"endDate\":\"" + endDate + "\"}";
+	}
+	
+	private HttpResponse<String> get(String path) throws Exception {
+		return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+	
+	private HttpResponse<String> post(String path, String body) throws Exception {
+		return httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+	
+	private void expect(HttpResponse<String> response, int status) {
+		if(response.statusCode()!=status) errors.incrementAndGet();
+	}
+	
+	private void report(long[] latencies) {
+		if(latencies.length==0) {
+			System.out.println("No requests completed");
+			return;
+		}
+		System.out.printf("Requests:   %d (%d errors)%n", latencies.length, errors.get());
+		System.out.printf("Throughput: %.1f req/s%n", latencies.length / (double) seconds);
+		System.out.printf("Latency ms: p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+				percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+				percentile(latencies, 99.9), latencies[latencies.length - 1] / 1e6);
+	}
+	
+	private double percentile(long[] sortedLatencies, double percentile) {
+		int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+		return sortedLatencies[Math.max(0, index)] / 1e6;
+	}
+	
+}
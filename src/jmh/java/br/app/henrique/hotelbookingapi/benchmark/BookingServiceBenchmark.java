@@ -0,0 +1,139 @@
+package br.app.henrique.hotelbookingapi.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.service.BookingService;
+import br.app.henrique.hotelbookingapi.service.HotelService;
+
+//Run with -prof gc to get the allocation rate per operation
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingServiceBenchmark {
+	
+	@Param({"1000", "100000", "1000000"})
+	int rows;
+	
+	ConfigurableApplicationContext context;
+	BookingService bookingService;
+	String updatedBookingId;
+	String contendedBookingId;
+	Long contendedRoomId;
+	boolean moveForward;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkApplication.start();
+		BenchmarkApplication.seedHistory(context.getBean(JdbcTemplate.class), rows);
+		bookingService = context.getBean(BookingService.class);
+		
+		Booking booking = bookingService.createBooking(
+				new Booking("Benchmark", LocalDate.now().plusDays(10), LocalDate.now().plusDays(11)));
+		updatedBookingId = String.valueOf(booking.getId());
+		//The contended booking has its own room, so both update benchmarks can use the same dates
+		contendedRoomId = context.getBean(HotelService.class).createRoom(1l, new Room("Contended", null)).getId();
+		Booking contendedBooking = bookingService.createBooking(
+				new Booking("Benchmark", contendedRoomId, LocalDate.now().plusDays(10), LocalDate.now().plusDays(11)));
+		contendedBookingId = String.valueOf(contendedBooking.getId());
+		bookingService.createBooking(new Booking("Benchmark", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6)));
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Booking createAndCancelBooking() {
+		//Cancelling keeps the bookable window free, so every invocation takes the full create path
+		Booking booking = bookingService.createBooking(
+				new Booking("Benchmark", LocalDate.now().plusDays(20), LocalDate.now().plusDays(22)));
+		bookingService.cancelBooking(String.valueOf(booking.getId()));
+		return booking;
+	}
+	
+	@Benchmark
+	public void createBookingRejectedByHotelRules(Blackhole blackhole) {
+		try {
+			bookingService.createBooking(
+					new Booking("Benchmark", LocalDate.now().plusDays(20), LocalDate.now().plusDays(25)));
+		} catch (ResponseStatusException e) {
+			blackhole.consume(e);
+		}
+	}
+	
+	@Benchmark
+	public void createBookingRejectedByConflict(Blackhole blackhole) {
+		try {
+			bookingService.createBooking(
+					new Booking("Benchmark", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6)));
+		} catch (ResponseStatusException e) {
+			blackhole.consume(e);
+		}
+	}
+	
+	@Benchmark
+	public Booking updateBooking() {
+		//Moves the same booking back and forth between two free ranges
+		moveForward = !moveForward;
+		LocalDate startDate = LocalDate.now().plusDays(moveForward ? 14 : 10);
+		return bookingService.updateBooking(updatedBookingId, new Booking(null, startDate, startDate.plusDays(1)));
+	}
+	
+	@Benchmark
+	@Threads(8)
+	public Booking updateBookingContended(UpdaterState updater) {
+		//Every thread renames and moves the same booking, contending for its update lock and version
+		updater.moveForward = !updater.moveForward;
+		LocalDate startDate = LocalDate.now().plusDays(updater.moveForward ? 14 : 10);
+		return bookingService.updateBooking(contendedBookingId, new Booking(updater.name, contendedRoomId, startDate, startDate.plusDays(1)));
+	}
+	
+	@Benchmark
+	public List<Booking> checkBookingsByDate() {
+		LocalDate startDate = BenchmarkApplication.firstSeededDay(rows)
+				.plusDays(ThreadLocalRandom.current().nextInt(2 * rows));
+		return bookingService.checkBookingsByDate(new Booking(null, startDate, startDate.plusDays(2)));
+	}
+	
+	@Benchmark
+	public List<Booking> returnAllBookings() {
+		return bookingService.returnAllBookings();
+	}
+	
+	@State(Scope.Thread)
+	public static class UpdaterState {
+		
+		String name = "Updater " + Thread.currentThread().getId();
+		boolean moveForward;
+		
+	}
+	
+}
@@ -0,0 +1,95 @@
+package br.app.henrique.hotelbookingapi.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingService;
+
+//Compares the JPA/H2 booking store with the journal profile, through the service and through the repository alone
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookingStorageBenchmark {
+	
+	@Param({"jpa", "journal"})
+	String store;
+	
+	@Param({"false"})
+	boolean forceOnWrite;
+	
+	ConfigurableApplicationContext context;
+	BookingService bookingService;
+	BookingStore bookingRepository;
+	String updatedBookingId;
+	boolean moveForward;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		if(store.equals("journal")) {
+			context = BenchmarkApplication.start(
+					"spring.profiles.active=journal",
+					"booking.journal.directory=" + Files.createTempDirectory("booking-journal"),
+					"booking.journal.force-on-write=" + forceOnWrite);
+		} else {
+			context = BenchmarkApplication.start();
+		}
+		bookingService = context.getBean(BookingService.class);
+		bookingRepository = context.getBean(BookingStore.class);
+		
+		Booking booking = bookingService.createBooking(
+				new Booking("Benchmark", LocalDate.now().plusDays(10), LocalDate.now().plusDays(11)));
+		updatedBookingId = String.valueOf(booking.getId());
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+	
+	@Benchmark
+	public Booking createAndCancelBooking() {
+		Booking booking = bookingService.createBooking(
+				new Booking("Benchmark", LocalDate.now().plusDays(20), LocalDate.now().plusDays(22)));
+		bookingService.cancelBooking(String.valueOf(booking.getId()));
+		return booking;
+	}
+	
+	@Benchmark
+	public Booking updateBooking() {
+		moveForward = !moveForward;
+		LocalDate startDate = LocalDate.now().plusDays(moveForward ? 14 : 10);
+		return bookingService.updateBooking(updatedBookingId, new Booking(null, startDate, startDate.plusDays(1)));
+	}
+	
+	@Benchmark
+	public Booking saveAndDelete() {
+		//The store alone, without validation, availability index or cache
+		Booking booking = bookingRepository.save(
+				new Booking("Benchmark", LocalDate.now().plusDays(25), LocalDate.now().plusDays(26)));
+		bookingRepository.deleteById(booking.getId());
+		return booking;
+	}
+	
+}
@@ -0,0 +1,52 @@
+package br.app.henrique.hotelbookingapi.availability;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+//Days of a room that became free or occupied, published once the booking change is committed
+@JsonPropertyOrder({"roomId", "startDate", "endDate", "available"})
+public final class AvailabilityChange {
+
+	private final Long roomId;
+	private final LocalDate startDate;
+	private final LocalDate endDate;
+	private final boolean available;
+
+	private AvailabilityChange(Long roomId, LocalDate startDate, LocalDate endDate, boolean available) {
+		this.roomId = roomId;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.available = available;
+	}
+
+	public static AvailabilityChange freed(Long roomId, LocalDate startDate, LocalDate endDate) {
+		return new AvailabilityChange(roomId, startDate, endDate, true);
+	}
+
+	public static AvailabilityChange occupied(Long roomId, LocalDate startDate, LocalDate endDate) {
+		return new AvailabilityChange(roomId, startDate, endDate, false);
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public boolean isAvailable() {
+		return available;
+	}
+
+	@Override
+	public String toString() {
+		return "AvailabilityChange [roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate + ", available=" + available + "]";
+	}
+
+}
@@ -0,0 +1,206 @@
+package br.app.henrique.hotelbookingapi.availability;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.Room;
+
+@Component
+public class AvailabilityIndex {
+
+	//One calendar per room, so requests for different rooms never touch the same days.
+	//Sorted by room id, so free room searches always return the same rooms first.
+	private final ConcurrentNavigableMap<Long, RoomCalendar> roomCalendars = new ConcurrentSkipListMap<>();
+
+	//Room and dates of each indexed booking, so it can be moved or removed by id only
+	private final Map<Long, Stay> staysById = new ConcurrentHashMap<>();
+
+	private final AtomicLong claimSequence = new AtomicLong();
+
+	public synchronized void load(Collection<Room> rooms, Collection<Booking> bookings) {
+		roomCalendars.clear();
+		staysById.clear();
+		for(Room room : rooms) {
+			addRoom(room.getId(), room.getHotelId());
+		}
+		for(Booking booking : bookings) {
+			put(booking);
+		}
+	}
+
+	public void addRoom(Long roomId, Long hotelId) {
+		roomCalendars.putIfAbsent(roomId, new RoomCalendar(hotelId));
+	}
+
+	public boolean hasRoom(Long roomId) {
+		return roomId!=null && roomCalendars.containsKey(roomId);
+	}
+
+	public List<Long> findConflicts(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore) {
+		//Bookings are stored day by day, so partial and enclosing overlaps are both found here
+		RoomCalendar roomCalendar = calendarOf(roomId);
+		if(roomCalendar==null) {
+			return Collections.emptyList();
+		}
+		List<Long> conflicts = new ArrayList<>();
+		for(Long id : roomCalendar.occupiedDays().subMap(startDate, true, endDate, true).values()) {
+			if(!id.equals(idToIgnore) && !conflicts.contains(id)) {
+				conflicts.add(id);
+			}
+		}
+		return conflicts;
+	}
+
+	public Map<LocalDate, Boolean> calendar(Long roomId, LocalDate startDate, LocalDate endDate) {
+		//true when the day is free
+		RoomCalendar roomCalendar = calendarOf(roomId);
+		Map<LocalDate, Boolean> calendar = new LinkedHashMap<>();
+		for(LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+			calendar.put(day, roomCalendar==null || !roomCalendar.occupiedDays().containsKey(day));
+		}
+		return calendar;
+	}
+
+	public List<Long> findFreeRooms(Long hotelId, LocalDate startDate, LocalDate endDate, int limit) {
+		//Each room is a range lookup on its own calendar, and the search stops once enough rooms are found
+		List<Long> freeRooms = new ArrayList<>();
+		for(Map.Entry<Long, RoomCalendar> entry : roomCalendars.entrySet()) {
+			if(freeRooms.size()>=limit) {
+				break;
+			}
+			RoomCalendar roomCalendar = entry.getValue();
+			if((hotelId==null || hotelId.equals(roomCalendar.getHotelId())) && roomCalendar.isFree(startDate, endDate)) {
+				freeRooms.add(entry.getKey());
+			}
+		}
+		return freeRooms;
+	}
+
+	public Long newClaimId() {
+		return claimSequence.decrementAndGet();
+	}
+
+	public boolean claim(Long roomId, LocalDate startDate, LocalDate endDate, Long owner) {
+		RoomCalendar roomCalendar = calendarOf(roomId);
+		if(roomCalendar==null) {
+			return false;
+		}
+		//Days are claimed in ascending order and the claim stops at the first taken day,
+		//so of two overlapping requests the one holding the first shared day always wins
+		for(LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+			Long current = roomCalendar.occupiedDays().putIfAbsent(day, owner);
+			if(current!=null && !current.equals(owner)) {
+				release(roomId, startDate, day.minusDays(1), owner);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void release(Long roomId, LocalDate startDate, LocalDate endDate, Long owner) {
+		RoomCalendar roomCalendar = calendarOf(roomId);
+		if(roomCalendar==null) {
+			return;
+		}
+		//Days the owner already held in this room before the claim are kept
+		Stay stay = staysById.get(owner);
+		for(LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+			if(stay==null || !stay.contains(roomId, day)) {
+				roomCalendar.occupiedDays().remove(day, owner);
+			}
+		}
+	}
+
+	public void confirm(Long owner, Booking savedBooking) {
+		Long id = savedBooking.getId();
+		Stay newStay = new Stay(savedBooking.getRoomId(), savedBooking.getStartDate(), savedBooking.getEndDate());
+		RoomCalendar roomCalendar = calendarOf(newStay.roomId);
+		if(roomCalendar!=null) {
+			for(LocalDate day = newStay.startDate; !day.isAfter(newStay.endDate); day = day.plusDays(1)) {
+				roomCalendar.occupiedDays().replace(day, owner, id);
+			}
+		}
+		Stay previousStay = staysById.put(id, newStay);
+		if(previousStay!=null) {
+			//The booking may also have moved to another room
+			RoomCalendar previousRoomCalendar = calendarOf(previousStay.roomId);
+			if(previousRoomCalendar!=null) {
+				for(LocalDate day = previousStay.startDate; !day.isAfter(previousStay.endDate); day = day.plusDays(1)) {
+					if(!newStay.contains(previousStay.roomId, day)) {
+						previousRoomCalendar.occupiedDays().remove(day, id);
+					}
+				}
+			}
+		}
+	}
+
+	public void put(Booking booking) {
+		if(booking.getId()==null || booking.getStartDate()==null || booking.getEndDate()==null) {
+			return;
+		}
+		RoomCalendar roomCalendar = calendarOf(booking.getRoomId());
+		if(roomCalendar==null) {
+			return;
+		}
+		for(LocalDate day = booking.getStartDate(); !day.isAfter(booking.getEndDate()); day = day.plusDays(1)) {
+			roomCalendar.occupiedDays().put(day, booking.getId());
+		}
+		confirm(booking.getId(), booking);
+	}
+
+	public void remove(Long id) {
+		Stay stay = staysById.remove(id);
+		if(stay==null) {
+			return;
+		}
+		RoomCalendar roomCalendar = calendarOf(stay.roomId);
+		if(roomCalendar==null) {
+			return;
+		}
+		for(LocalDate day = stay.startDate; !day.isAfter(stay.endDate); day = day.plusDays(1)) {
+			roomCalendar.occupiedDays().remove(day, id);
+		}
+	}
+
+	public void pruneBefore(LocalDate date) {
+		//Days before the date can no longer be booked, so they are dropped to keep the calendars small
+		for(RoomCalendar roomCalendar : roomCalendars.values()) {
+			roomCalendar.occupiedDays().headMap(date).clear();
+		}
+		staysById.values().removeIf(stay -> stay.endDate.isBefore(date));
+	}
+	
+	private RoomCalendar calendarOf(Long roomId) {
+		return roomId==null ? null : roomCalendars.get(roomId);
+	}
+
+	private static final class Stay {
+
+		private final Long roomId;
+		private final LocalDate startDate;
+		private final LocalDate endDate;
+
+		private Stay(Long roomId, LocalDate startDate, LocalDate endDate) {
+			this.roomId = roomId;
+			this.startDate = startDate;
+			this.endDate = endDate;
+		}
+
+		private boolean contains(Long roomId, LocalDate day) {
+			return this.roomId!=null && this.roomId.equals(roomId) && !day.isBefore(startDate) && !day.isAfter(endDate);
+		}
+	}
+
+}
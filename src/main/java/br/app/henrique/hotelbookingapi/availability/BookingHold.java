@@ -0,0 +1,93 @@
+package br.app.henrique.hotelbookingapi.availability;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+
+//Days of a room claimed in the availability index for a while, until they are booked or the hold expires
+public final class BookingHold implements Delayed {
+
+	private final String id;
+	private final Long claimId;
+	private final String name;
+	private final Long roomId;
+	private final LocalDate startDate;
+	private final LocalDate endDate;
+	private final Instant expiresAt;
+	//Monotonic, so the hold expires after its time to live even if the wall clock is changed
+	private final long deadlineNanos;
+
+	public BookingHold(Long claimId, Booking booking, Instant now, Duration timeToLive) {
+		//Random, so only the client that placed the hold can book or release it
+		this.id = UUID.randomUUID().toString();
+		this.claimId = claimId;
+		this.name = booking.getName();
+		this.roomId = booking.getRoomId();
+		this.startDate = booking.getStartDate();
+		this.endDate = booking.getEndDate();
+		this.expiresAt = now.plus(timeToLive);
+		this.deadlineNanos = System.nanoTime() + timeToLive.toNanos();
+	}
+
+	public Booking toBooking() {
+		return new Booking(name, roomId, startDate, endDate);
+	}
+
+	public boolean isExpired() {
+		return getDelay(TimeUnit.NANOSECONDS)<=0;
+	}
+
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public int compareTo(Delayed other) {
+		if(other instanceof BookingHold) {
+			//nanoTime values can only be compared by their difference
+			return Long.signum(deadlineNanos - ((BookingHold) other).deadlineNanos);
+		}
+		return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public Long getClaimId() {
+		return claimId;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "BookingHold [id=" + id + ", claimId=" + claimId + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate
+				+ ", endDate=" + endDate + ", expiresAt=" + expiresAt + "]";
+	}
+
+}
@@ -0,0 +1,118 @@
+package br.app.henrique.hotelbookingapi.availability;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+//Holds are claims in the availability index, so every availability check sees their days as taken until they end
+@Component
+public class BookingHolds {
+
+	private static final Logger log = LoggerFactory.getLogger(BookingHolds.class);
+
+	public static final String ACTIVE = "booking.holds.active";
+	public static final String EXPIRED = "booking.holds.expired";
+
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+
+	@Autowired
+	ApplicationEventPublisher applicationEventPublisher;
+
+	private final Map<String, BookingHold> holds = new ConcurrentHashMap<>();
+
+	//Sorted by expiry, so a single thread sleeps until the next hold expires, whatever the number of holds.
+	//Holds that were booked or released are left in the queue and skipped once they are due
+	private final DelayQueue<BookingHold> expiryQueue = new DelayQueue<>();
+	private final Thread expiryThread;
+	private final Counter expired;
+
+	public BookingHolds(MeterRegistry meterRegistry) {
+		expiryThread = new Thread(this::expireHolds, "booking-hold-expiry");
+		expiryThread.setDaemon(true);
+		expired = Counter.builder(EXPIRED)
+				.description("Booking holds released because they were not booked in time")
+				.register(meterRegistry);
+		Gauge.builder(ACTIVE, holds, Map::size)
+				.description("Booking holds currently claiming days")
+				.register(meterRegistry);
+	}
+
+	@PostConstruct
+	void start() {
+		expiryThread.start();
+	}
+
+	@PreDestroy
+	void stop() {
+		expiryThread.interrupt();
+	}
+
+	public void add(BookingHold hold) {
+		holds.put(hold.getId(), hold);
+		expiryQueue.put(hold);
+	}
+
+	public BookingHold take(String id) {
+		//Removing the hold decides between booking, releasing and expiring it, so its days are only handed over once
+		BookingHold hold = holds.remove(id);
+		if(hold!=null && hold.isExpired()) {
+			//Due, but not yet reached by the expiry thread
+			release(hold);
+			expired.increment();
+			return null;
+		}
+		return hold;
+	}
+
+	public void release(BookingHold hold) {
+		availabilityIndex.release(hold.getRoomId(), hold.getStartDate(), hold.getEndDate(), hold.getClaimId());
+		applicationEventPublisher.publishEvent(AvailabilityChange.freed(hold.getRoomId(), hold.getStartDate(), hold.getEndDate()));
+	}
+
+	public int expireDueHolds() {
+		int expiredHolds = 0;
+		for(BookingHold hold = expiryQueue.poll(); hold!=null; hold = expiryQueue.poll()) {
+			if(expire(hold)) {
+				expiredHolds++;
+			}
+		}
+		return expiredHolds;
+	}
+
+	private void expireHolds() {
+		while(!Thread.currentThread().isInterrupted()) {
+			try {
+				expire(expiryQueue.take());
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch(RuntimeException e) {
+				log.error("Could not expire booking hold", e);
+			}
+		}
+	}
+
+	private boolean expire(BookingHold hold) {
+		if(!holds.remove(hold.getId(), hold)) {
+			return false;
+		}
+		release(hold);
+		expired.increment();
+		log.debug("Expired booking hold: {}", hold);
+		return true;
+	}
+
+}
@@ -0,0 +1,31 @@
+package br.app.henrique.hotelbookingapi.availability;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+final class RoomCalendar {
+
+	private final Long hotelId;
+
+	//Every occupied day of the room, mapped to the id of the booking holding it.
+	//Bookings still being saved hold their days with a negative claim id.
+	private final ConcurrentNavigableMap<LocalDate, Long> occupiedDays = new ConcurrentSkipListMap<>();
+
+	RoomCalendar(Long hotelId) {
+		this.hotelId = hotelId;
+	}
+
+	Long getHotelId() {
+		return hotelId;
+	}
+
+	ConcurrentNavigableMap<LocalDate, Long> occupiedDays() {
+		return occupiedDays;
+	}
+
+	boolean isFree(LocalDate startDate, LocalDate endDate) {
+		return occupiedDays.subMap(startDate, true, endDate, true).isEmpty();
+	}
+
+}
@@ -0,0 +1,205 @@
+package br.app.henrique.hotelbookingapi.cache;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Component
+public class BookingQueryCache implements MeterBinder {
+	
+	private static final Integer MAX_CACHED_DATE_RANGES = 10000;
+	private static final Integer DAYS_PER_BUCKET = 7;
+	private static final Integer MAX_BUCKETS_PER_RANGE = 53;
+	
+	//Cached ranges by the weeks they cover, so a write only visits the ranges of the weeks it changes.
+	//Ranges longer than a year are kept apart and visited by every write, instead of being added to every week
+	private final Map<Long, Set<DateRange>> rangesByBucket = new ConcurrentHashMap<>();
+	private final Set<DateRange> longRanges = ConcurrentHashMap.newKeySet();
+	
+	//The removal listener runs on the calling thread, so ranges leave the index as soon as they leave the cache
+	private final Cache<DateRange, List<Booking>> bookingsByDate = Caffeine.newBuilder()
+			.maximumSize(MAX_CACHED_DATE_RANGES)
+			.executor(Runnable::run)
+			.<DateRange, List<Booking>>removalListener((range, bookings, cause) -> unindex(range))
+			.recordStats()
+			.build();
+	
+	//Bumped on every invalidation, so a query that read the database before a write does not cache its result after it
+	private final AtomicLong generation = new AtomicLong();
+	
+	public List<Booking> getBookingsByDate(LocalDate startDate, LocalDate endDate, Supplier<List<Booking>> query) {
+		DateRange range = new DateRange(startDate, endDate);
+		List<Booking> bookings = bookingsByDate.getIfPresent(range);
+		if(bookings!=null) {
+			return bookings;
+		}
+		long generationBeforeQuery = generation.get();
+		bookings = query.get();
+		bookingsByDate.put(range, bookings);
+		//Indexed after it is cached, so a removal of the previous entry never drops it from the index.
+		//A write between the two bumps the generation, and the entry is then dropped below
+		index(range);
+		if(generation.get()!=generationBeforeQuery) {
+			bookingsByDate.invalidate(range);
+		}
+		return bookings;
+	}
+	
+	public void invalidate(LocalDate startDate, LocalDate endDate) {
+		//Only the cached ranges overlapping the changed dates are dropped, found through the weeks of the change
+		afterCommit(() -> {
+			generation.incrementAndGet();
+			List<DateRange> candidates = new ArrayList<>(longRanges);
+			for(long bucket = bucketOf(startDate); bucket <= bucketOf(endDate); bucket++) {
+				Set<DateRange> ranges = rangesByBucket.get(bucket);
+				if(ranges!=null) {
+					candidates.addAll(ranges);
+				}
+			}
+			for(DateRange range : candidates) {
+				if(range.overlaps(startDate, endDate)) {
+					bookingsByDate.invalidate(range);
+				}
+			}
+		});
+	}
+	
+	public void invalidateAll() {
+		afterCommit(() -> {
+			generation.incrementAndGet();
+			bookingsByDate.invalidateAll();
+		});
+	}
+	
+	public Map<String, Map<String, Number>> stats() {
+		Map<String, Map<String, Number>> stats = new LinkedHashMap<>();
+		stats.put("bookingsByDate", toMap(bookingsByDate.stats()));
+		return stats;
+	}
+	
+	private Map<String, Number> toMap(CacheStats cacheStats) {
+		Map<String, Number> stats = new LinkedHashMap<>();
+		stats.put("hits", cacheStats.hitCount());
+		stats.put("misses", cacheStats.missCount());
+		stats.put("evictions", cacheStats.evictionCount());
+		stats.put("hitRate", cacheStats.hitRate());
+		return stats;
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry meterRegistry) {
+		CaffeineCacheMetrics.monitor(meterRegistry, bookingsByDate, "bookingsByDate");
+	}
+	
+	private void afterCommit(Runnable invalidation) {
+		//Inside a transaction, readers still see the rows before the write until it commits,
+		//so dropping the entries earlier would let them cache those rows again
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			invalidation.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				invalidation.run();
+			}
+		});
+	}
+	
+	private void index(DateRange range) {
+		if(range.buckets()>MAX_BUCKETS_PER_RANGE) {
+			synchronized(longRanges) {
+				longRanges.add(range);
+			}
+			return;
+		}
+		for(long bucket = bucketOf(range.startDate); bucket <= bucketOf(range.endDate); bucket++) {
+			rangesByBucket.compute(bucket, (key, ranges) -> {
+				Set<DateRange> bucketRanges = ranges==null ? ConcurrentHashMap.newKeySet() : ranges;
+				bucketRanges.add(range);
+				return bucketRanges;
+			});
+		}
+	}
+	
+	private void unindex(DateRange range) {
+		//Checked under the same lock the range is indexed with, as it may have been cached again in the meantime
+		if(range.buckets()>MAX_BUCKETS_PER_RANGE) {
+			synchronized(longRanges) {
+				if(!bookingsByDate.asMap().containsKey(range)) {
+					longRanges.remove(range);
+				}
+			}
+			return;
+		}
+		for(long bucket = bucketOf(range.startDate); bucket <= bucketOf(range.endDate); bucket++) {
+			rangesByBucket.computeIfPresent(bucket, (key, ranges) -> {
+				if(!bookingsByDate.asMap().containsKey(range)) {
+					ranges.remove(range);
+				}
+				return ranges.isEmpty() ? null : ranges;
+			});
+		}
+	}
+	
+	private static long bucketOf(LocalDate date) {
+		return Math.floorDiv(date.toEpochDay(), DAYS_PER_BUCKET);
+	}
+	
+	private static final class DateRange {
+		
+		private final LocalDate startDate;
+		private final LocalDate endDate;
+		
+		private DateRange(LocalDate startDate, LocalDate endDate) {
+			this.startDate = startDate;
+			this.endDate = endDate;
+		}
+		
+		private long buckets() {
+			return bucketOf(endDate) - bucketOf(startDate) + 1;
+		}
+		
+		private boolean overlaps(LocalDate otherStartDate, LocalDate otherEndDate) {
+			return !startDate.isAfter(otherEndDate) && !endDate.isBefore(otherStartDate);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(endDate, startDate);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			DateRange other = (DateRange) obj;
+			return Objects.equals(endDate, other.endDate) && Objects.equals(startDate, other.startDate);
+		}
+	}
+	
+}
@@ -0,0 +1,37 @@
+package br.app.henrique.hotelbookingapi.configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import br.app.henrique.hotelbookingapi.controller.CompletedFutureReturnValueHandler;
+
+@Configuration
+public class AsyncRequestConfig {
+
+    //Custom return value handlers are consulted after the built-in ones, so this one is put first,
+    //ahead of the handler that starts an async dispatch for every CompletableFuture
+    @Bean
+    public static BeanPostProcessor completedFutureBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof RequestMappingHandlerAdapter) {
+                    RequestMappingHandlerAdapter adapter = (RequestMappingHandlerAdapter) bean;
+                    List<HandlerMethodReturnValueHandler> handlers = new ArrayList<>(adapter.getReturnValueHandlers());
+                    HandlerMethodReturnValueHandlerComposite delegates = new HandlerMethodReturnValueHandlerComposite()
+                          .addHandlers(handlers);
+                    handlers.add(0, new CompletedFutureReturnValueHandler(delegates));
+                    adapter.setReturnValueHandlers(handlers);
+                }
+                return bean;
+            }
+        };
+    }
+}
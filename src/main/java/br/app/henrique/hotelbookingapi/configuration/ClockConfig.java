@@ -0,0 +1,15 @@
+package br.app.henrique.hotelbookingapi.configuration;
+
+import java.time.Clock;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ClockConfig {
+    @Bean
+    public Clock clock() {
+        //Injected wherever today's date is needed, so each request reads it once and tests can fix it
+        return Clock.systemDefaultZone();
+    }
+}
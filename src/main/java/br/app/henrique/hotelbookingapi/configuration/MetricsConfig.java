@@ -0,0 +1,16 @@
+package br.app.henrique.hotelbookingapi.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class MetricsConfig {
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        //Needed for @Timed on BookingServiceImpl, which Spring MVC does not time by itself
+        return new TimedAspect(meterRegistry);
+    }
+}
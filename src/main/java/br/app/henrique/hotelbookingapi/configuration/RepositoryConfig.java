@@ -0,0 +1,27 @@
+package br.app.henrique.hotelbookingapi.configuration;
+
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import br.app.henrique.hotelbookingapi.repository.BookingRepository;
+
+@Configuration
+public class RepositoryConfig {
+
+    @Configuration
+    @Profile("!journal")
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class)
+    static class JpaRepositoryConfig {
+    }
+
+    //With the journal profile, bookings are stored by JournalBookingRepository instead of JPA
+    @Configuration
+    @Profile("journal")
+    @EnableJpaRepositories(basePackageClasses = BookingRepository.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = BookingRepository.class))
+    static class JournalRepositoryConfig {
+    }
+}
@@ -0,0 +1,10 @@
+package br.app.henrique.hotelbookingapi.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    //Runs the archival of past bookings, see BookingArchiveServiceImpl
+}
@@ -1,12 +1,20 @@
 package br.app.henrique.hotelbookingapi.configuration;
 
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
 @Configuration
@@ -20,4 +28,37 @@ public class SwaggerConfig {
           .paths(PathSelectors.any())
           .build();
     }
-}
\ No newline at end of file
+
+    //Actuator endpoints are mapped with path patterns even with the ant-path-matcher strategy,
+    //which springfox 2.9.2 cannot read, so only the mappings using the ant path matcher are documented.
+    //Springfox has no setting for this, so the mappings are removed from the private handlerMappings field
+    //of its WebMvcRequestHandlerProvider, and startup fails if a springfox upgrade renames that field
+    @Bean
+    public static BeanPostProcessor springfoxHandlerProviderBeanPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof WebMvcRequestHandlerProvider) {
+                    List<RequestMappingInfoHandlerMapping> mappings = getHandlerMappings(bean);
+                    List<RequestMappingInfoHandlerMapping> antPathMappings = mappings.stream()
+                          .filter(mapping -> mapping.getPatternParser() == null)
+                          .collect(Collectors.toList());
+                    mappings.clear();
+                    mappings.addAll(antPathMappings);
+                }
+                return bean;
+            }
+
+            @SuppressWarnings("unchecked")
+            private List<RequestMappingInfoHandlerMapping> getHandlerMappings(Object bean) {
+                Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings", List.class);
+                if (field == null) {
+                    throw new IllegalStateException("No handlerMappings field in " + bean.getClass().getName()
+                          + ", the actuator endpoints cannot be hidden from springfox");
+                }
+                ReflectionUtils.makeAccessible(field);
+                return (List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+            }
+        };
+    }
+}
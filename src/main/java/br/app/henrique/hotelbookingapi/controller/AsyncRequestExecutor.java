@@ -0,0 +1,75 @@
+package br.app.henrique.hotelbookingapi.controller;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+@Component
+public class AsyncRequestExecutor implements MeterBinder {
+	
+	//Not exposed as an Executor bean, so Spring Boot still creates its own executor for other async work
+	private final ThreadPoolTaskExecutor executor;
+	
+	public AsyncRequestExecutor(@Value("${booking.async.enabled:false}") boolean enabled,
+			@Value("${booking.async.pool-size:32}") int poolSize,
+			@Value("${booking.async.queue-capacity:2000}") int queueCapacity) {
+		if(enabled) {
+			executor = new ThreadPoolTaskExecutor();
+			executor.setCorePoolSize(poolSize);
+			executor.setMaxPoolSize(poolSize);
+			executor.setQueueCapacity(queueCapacity);
+			executor.setThreadNamePrefix("booking-async-");
+			executor.initialize();
+		} else {
+			executor = null;
+		}
+	}
+	
+	public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+		if(executor==null) {
+			//Synchronous mode: the request thread does the work, as with plain return values
+			return CompletableFuture.completedFuture(supplier.get());
+		}
+		try {
+			return CompletableFuture.supplyAsync(supplier, executor);
+		} catch (RejectedExecutionException e) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many requests in progress, please retry later");
+		}
+	}
+	
+	public CompletableFuture<Void> run(Runnable runnable) {
+		return supply(() -> {
+			runnable.run();
+			return null;
+		});
+	}
+	
+	@Override
+	public void bindTo(MeterRegistry meterRegistry) {
+		if(executor!=null) {
+			ThreadPoolExecutor threadPoolExecutor = executor.getThreadPoolExecutor();
+			new ExecutorServiceMetrics(threadPoolExecutor, "booking.async", null).bindTo(meterRegistry);
+		}
+	}
+	
+	@PreDestroy
+	void shutdown() {
+		if(executor!=null) {
+			executor.shutdown();
+		}
+	}
+	
+}
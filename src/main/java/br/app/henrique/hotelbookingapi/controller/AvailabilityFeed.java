@@ -0,0 +1,227 @@
+package br.app.henrique.hotelbookingapi.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class AvailabilityFeed {
+
+	public static final String SUBSCRIBERS = "booking.feed.subscribers";
+	public static final String DROPPED = "booking.feed.dropped";
+
+	private final ObjectMapper objectMapper;
+	private final long timeoutMillis;
+	private final int maxSubscribers;
+	private final int maxPendingEvents;
+
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final AtomicLong eventSequence = new AtomicLong();
+
+	//Sends to each subscriber run here, so publishers never wait for a client connection.
+	//Not exposed as an Executor bean, like the pool of AsyncRequestExecutor
+	private final ThreadPoolTaskExecutor executor;
+
+	private final Counter dropped;
+
+	public AvailabilityFeed(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+			@Value("${booking.feed.timeout-millis:1800000}") long timeoutMillis,
+			@Value("${booking.feed.max-subscribers:10000}") int maxSubscribers,
+			@Value("${booking.feed.max-pending-events:100}") int maxPendingEvents,
+			@Value("${booking.feed.threads:4}") int threads) {
+		this.objectMapper = objectMapper;
+		this.timeoutMillis = timeoutMillis;
+		this.maxSubscribers = maxSubscribers;
+		this.maxPendingEvents = maxPendingEvents;
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threads);
+		executor.setMaxPoolSize(threads);
+		//At most one send task is queued per subscriber
+		executor.setQueueCapacity(maxSubscribers);
+		executor.setThreadNamePrefix("booking-feed-");
+		executor.setDaemon(true);
+		executor.initialize();
+		Gauge.builder(SUBSCRIBERS, subscribers, List::size)
+				.description("Clients subscribed to the availability feed")
+				.register(meterRegistry);
+		dropped = Counter.builder(DROPPED)
+				.description("Subscribers disconnected because they did not keep up with the availability feed")
+				.register(meterRegistry);
+	}
+
+	public ResponseBodyEmitter subscribe(Long roomId) {
+		if(subscribers.size()>=maxSubscribers) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many subscribers, please retry later");
+		}
+		EventStreamEmitter emitter = new EventStreamEmitter(timeoutMillis);
+		Subscriber subscriber = new Subscriber(emitter, roomId);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(e -> subscribers.remove(subscriber));
+		subscribers.add(subscriber);
+		return emitter;
+	}
+
+	//After the commit, so subscribers never see a change that was rolled back
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAvailabilityChange(AvailabilityChange change) {
+		if(subscribers.isEmpty()) {
+			return;
+		}
+		//The event is serialized once and the same bytes are sent to every subscriber
+		Set<DataWithMediaType> event;
+		try {
+			event = SseEmitter.event()
+					.id(String.valueOf(eventSequence.incrementAndGet()))
+					.name("availability")
+					.data(objectMapper.writeValueAsBytes(change), MediaType.APPLICATION_JSON)
+					.build();
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Could not serialize availability change: " + change, e);
+		}
+		for(Subscriber subscriber : subscribers) {
+			if(subscriber.roomId==null || subscriber.roomId.equals(change.getRoomId())) {
+				subscriber.offer(event);
+			}
+		}
+	}
+
+	@Scheduled(fixedRateString = "${booking.feed.heartbeat:PT15S}")
+	public void sendHeartbeat() {
+		//Keeps idle connections open through proxies, and finds the clients that are gone
+		if(subscribers.isEmpty()) {
+			return;
+		}
+		Set<DataWithMediaType> heartbeat = SseEmitter.event().comment("heartbeat").build();
+		for(Subscriber subscriber : subscribers) {
+			subscriber.offer(heartbeat);
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		for(Subscriber subscriber : subscribers) {
+			subscriber.emitter.complete();
+		}
+		executor.shutdown();
+	}
+
+	private void drop(Subscriber subscriber) {
+		if(subscribers.remove(subscriber)) {
+			dropped.increment();
+			subscriber.emitter.complete();
+		}
+	}
+
+	private final class Subscriber {
+
+		private final EventStreamEmitter emitter;
+		private final Long roomId;
+
+		//Events are queued per subscriber and sent in order by at most one task at a time
+		private final Queue<Set<DataWithMediaType>> pending = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger pendingCount = new AtomicInteger();
+		private final AtomicBoolean sending = new AtomicBoolean();
+
+		private Subscriber(EventStreamEmitter emitter, Long roomId) {
+			this.emitter = emitter;
+			this.roomId = roomId;
+		}
+
+		private void offer(Set<DataWithMediaType> event) {
+			if(pendingCount.incrementAndGet()>maxPendingEvents) {
+				//A client this far behind would only get stale changes, so it is disconnected and has to reload
+				drop(this);
+				return;
+			}
+			pending.add(event);
+			scheduleSend();
+		}
+
+		private void scheduleSend() {
+			if(sending.compareAndSet(false, true)) {
+				try {
+					executor.execute(this::send);
+				} catch (RejectedExecutionException e) {
+					drop(this);
+				}
+			}
+		}
+
+		private void send() {
+			Set<DataWithMediaType> event;
+			while((event = pending.poll())!=null) {
+				pendingCount.decrementAndGet();
+				try {
+					emitter.send(event);
+				} catch (IOException | IllegalStateException e) {
+					//The client is gone, or the emitter was completed
+					subscribers.remove(this);
+					return;
+				}
+			}
+			sending.set(false);
+			//An event may have been added after the queue was found empty, but before sending was cleared
+			if(!pending.isEmpty()) {
+				scheduleSend();
+			}
+		}
+	}
+
+	//Sends events built once with SseEmitter.event(), as they are. SseEmitter itself only sends builders,
+	//and wraps any other data in a new event
+	private static final class EventStreamEmitter extends ResponseBodyEmitter {
+
+		private EventStreamEmitter(long timeoutMillis) {
+			super(timeoutMillis);
+		}
+
+		@Override
+		protected void extendResponse(ServerHttpResponse outputMessage) {
+			super.extendResponse(outputMessage);
+			HttpHeaders headers = outputMessage.getHeaders();
+			if(headers.getContentType()==null) {
+				headers.setContentType(MediaType.TEXT_EVENT_STREAM);
+			}
+		}
+
+		//The parts of an event are sent under the emitter lock, so they are never mixed with another send
+		private synchronized void send(Set<DataWithMediaType> event) throws IOException {
+			for(DataWithMediaType part : event) {
+				send(part.getData(), part.getMediaType());
+			}
+		}
+	}
+
+}
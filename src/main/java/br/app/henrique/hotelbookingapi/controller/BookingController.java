@@ -1,21 +1,54 @@
 package br.app.henrique.hotelbookingapi.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.app.henrique.hotelbookingapi.dto.BookingResponse;
+import br.app.henrique.hotelbookingapi.dto.BookingResult;
+import br.app.henrique.hotelbookingapi.dto.HoldResponse;
+import br.app.henrique.hotelbookingapi.dto.ImportReport;
+import br.app.henrique.hotelbookingapi.dto.WaitlistEntryResponse;
 import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+import br.app.henrique.hotelbookingapi.service.BookingArchiveService;
+import br.app.henrique.hotelbookingapi.service.BookingExportService;
+import br.app.henrique.hotelbookingapi.service.BookingFileFormat;
+import br.app.henrique.hotelbookingapi.service.BookingImportService;
 import br.app.henrique.hotelbookingapi.service.BookingService;
+import br.app.henrique.hotelbookingapi.service.WaitlistService;
 import io.swagger.annotations.ApiOperation;
 
 @RestController
@@ -24,47 +57,308 @@ public class BookingController {
 	
 	private static final Logger log = LoggerFactory.getLogger(BookingController.class);
 	
+	private static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+	private static final Integer GZIP_BUFFER_SIZE = 65536;
+	
 	@Autowired
 	BookingService bookingService;
+	
+	@Autowired
+	BookingArchiveService bookingArchiveService;
+	
+	@Autowired
+	BookingImportService bookingImportService;
+	
+	@Autowired
+	BookingExportService bookingExportService;
+	
+	@Autowired
+	WaitlistService waitlistService;
+	
+	@Autowired
+	ObjectMapper objectMapper;
+	
+	@Autowired
+	AsyncRequestExecutor asyncRequestExecutor;
+	
+	@Autowired
+	IdempotentRequestStore idempotentRequestStore;
+	
+	@Autowired
+	AvailabilityFeed availabilityFeed;
 
-	@PostMapping("/check")
+	@PostMapping(value = "/check", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
 	@ApiOperation(value = "Check bookings within two dates", 
-                  notes = "By passing startDate and endDate, the api returns all bookings within the dates.")
-	public List<Booking> checkBookingsByDate(@RequestBody Booking booking) {
-		log.info("Received request to check bookings by date: " + booking);
-		return bookingService.checkBookingsByDate(booking);
+                  notes = "By passing startDate and endDate, the api returns all bookings within the dates. "
+                  		+ "Send Accept: application/cbor or application/x-jackson-smile for a compact binary response.")
+	public CompletableFuture<List<BookingResponse>> checkBookingsByDate(@RequestBody Booking booking) {
+		log.debug("Received request to check bookings by date: {}", booking);
+		return asyncRequestExecutor.supply(() -> toResponses(bookingService.checkBookingsByDate(booking)));
+	}
+	
+	@GetMapping(value = "/all", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, APPLICATION_SMILE_VALUE})
+	@ApiOperation(value = "Return all bookings",
+                  notes = "Send Accept: application/cbor or application/x-jackson-smile for a compact binary response.")
+	public CompletableFuture<List<BookingResponse>> returnAllBookings() {
+		log.debug("Received request to return all bookings");
+		return asyncRequestExecutor.supply(() -> toResponses(bookingService.returnAllBookings()));
+	}
+	
+	@GetMapping("/all/page")
+	@ApiOperation(value = "Return a page of bookings",
+                  notes = "Bookings are ordered by id. Pass the id of the last booking received as afterId to get the next page.")
+	public CompletableFuture<List<BookingResponse>> returnBookingsPage(@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+		log.debug("Received request to return bookings after Id: {}, limit: {}", afterId, limit);
+		return asyncRequestExecutor.supply(() -> toResponses(bookingService.returnBookingsPage(afterId, limit)));
+	}
+	
+	@GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@ApiOperation(value = "Stream all bookings",
+                  notes = "Returns one booking per line (NDJSON), read from the database as it is written to the response.")
+	public StreamingResponseBody streamAllBookings() {
+		log.debug("Received request to stream all bookings");
+		return outputStream -> bookingService.streamAllBookings(booking -> {
+			try {
+				outputStream.write(objectMapper.writeValueAsBytes(BookingResponse.from(booking)));
+				outputStream.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
 	}
 	
-	@GetMapping("/all")
-	@ApiOperation(value = "Return all bookings")
-	public List<Booking> returnAllBookings() {
-		log.info("Received request to return all bookings");
-		return bookingService.returnAllBookings();
+	@GetMapping("/archive")
+	@ApiOperation(value = "Return archived bookings within two dates",
+                  notes = "Bookings that ended before today are moved to the archive, and only returned by this endpoint. "
+                  		+ "Bookings are ordered by id. Pass the id of the last booking received as afterId to get the next page.")
+	public CompletableFuture<List<BookingResponse>> returnArchivedBookings(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+			@RequestParam(required = false) Long afterId, @RequestParam(required = false) Integer limit) {
+		log.debug("Received request to return archived bookings from {} to {} after Id: {}, limit: {}", startDate, endDate, afterId, limit);
+		return asyncRequestExecutor.supply(() -> bookingArchiveService.returnArchivedBookings(startDate, endDate, afterId, limit).stream()
+				.map(BookingResponse::from).collect(Collectors.toList()));
+	}
+	
+	@GetMapping("/export")
+	@ApiOperation(value = "Export bookings as a CSV or NDJSON file",
+                  notes = "Streams the bookings within startDate and endDate, ordered by id, as they are read from the database. Both dates are optional. "
+                  		+ "format is csv (default) or ndjson. The file is gzip compressed when the request sends Accept-Encoding: gzip.")
+	public ResponseEntity<StreamingResponseBody> exportBookings(
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+			@RequestParam(required = false) String format,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		log.debug("Received request to export bookings from {} to {}, format: {}, Accept-Encoding: {}", startDate, endDate, format, acceptEncoding);
+		BookingFileFormat fileFormat = parseFormat(format);
+		//Checked before the response starts, as errors cannot change its status once rows are written
+		bookingExportService.checkExportRange(startDate, endDate);
+		boolean gzip = acceptEncoding!=null && acceptEncoding.contains("gzip");
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.parseMediaType(fileFormat.mediaType()));
+		headers.setContentDisposition(ContentDisposition.attachment().filename("bookings." + fileFormat.extension()).build());
+		headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+		if(gzip) {
+			headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return ResponseEntity.ok().headers(headers).body(outputStream -> {
+			if(!gzip) {
+				bookingExportService.exportBookings(startDate, endDate, fileFormat, outputStream);
+				return;
+			}
+			//Fastest compression level, as the export is mostly dates and ids that compress well anyway
+			GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) {
+				{
+					def.setLevel(Deflater.BEST_SPEED);
+				}
+			};
+			bookingExportService.exportBookings(startDate, endDate, fileFormat, gzipOutputStream);
+			gzipOutputStream.finish();
+		});
+	}
+	
+	@PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+	@ApiOperation(value = "Import past bookings from a CSV or NDJSON file",
+                  notes = "Admin endpoint, enabled with booking.import.enabled. Bookings must have ended before today, and are written to the archive. "
+                  		+ "Records must be sorted by roomId and startDate. CSV files start with a header naming the columns name, roomId, startDate and endDate. "
+                  		+ "When the import stops at an invalid record, send the same file again with offset set to the returned nextOffset.")
+	public ResponseEntity<ImportReport> importBookings(InputStream input, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+			@RequestParam(required = false) Long offset) {
+		log.debug("Received request to import bookings, Content-Type: {}, offset: {}", contentType, offset);
+		BookingFileFormat format = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType))
+				? BookingFileFormat.NDJSON : BookingFileFormat.CSV;
+		//Runs on the request thread, as it reads the request body for as long as the import takes
+		ImportReport report = bookingImportService.importBookings(input, format, offset==null ? 0l : offset);
+		return ResponseEntity.status(report.getStatus()==ImportReport.Status.FAILED ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK).body(report);
+	}
+	
+	@GetMapping("/import/progress")
+	@ApiOperation(value = "Return the progress of the running import, or the result of the last one")
+	public ImportReport returnImportProgress() {
+		return bookingImportService.returnImportProgress();
+	}
+	
+	@GetMapping("/availability")
+	@ApiOperation(value = "Return availability calendar of a room",
+                  notes = "Returns every day that can currently be booked, with true for free days and false for occupied ones. "
+                  		+ "roomId defaults to the first room of the first hotel.")
+	public Map<LocalDate, Boolean> returnAvailabilityCalendar(@RequestParam(required = false) Long roomId) {
+		log.debug("Received request to return availability calendar of room with Id: {}", roomId);
+		return bookingService.returnAvailabilityCalendar(roomId);
+	}
+	
+	@GetMapping(value = "/availability/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ApiOperation(value = "Subscribe to availability changes",
+                  notes = "Server-sent events, one 'availability' event each time days of a room become free or occupied. "
+                  		+ "roomId is optional, to only receive the changes of a single room.")
+	public ResponseBodyEmitter subscribeToAvailability(@RequestParam(required = false) Long roomId) {
+		log.debug("Received request to subscribe to availability changes of room with Id: {}", roomId);
+		return availabilityFeed.subscribe(roomId);
 	}
 	
 	@PostMapping("/new")
 	@ApiOperation(value = "Create new booking",
-                  notes = "name, startDate and endDate are required")
-	@ResponseStatus(value = HttpStatus.CREATED)
-	public Booking createBooking(@RequestBody Booking booking) {
-		log.info("Received request to create new booking: " + booking);
-		return bookingService.createBooking(booking);
+                  notes = "name, startDate and endDate are required. roomId defaults to the first room of the first hotel. "
+                  		+ "Requests retried with the same Idempotency-Key get the response of the first one, without creating another booking.")
+	public CompletableFuture<ResponseEntity<BookingResponse>> createBooking(@RequestBody Booking booking,
+			@RequestHeader(value = IdempotentRequestStore.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		log.debug("Received request to create new booking: {}, Idempotency-Key: {}", booking, idempotencyKey);
+		return idempotentRequestStore.execute(idempotencyKey, fingerprint("new", null, booking, null),
+				() -> asyncRequestExecutor.supply(() -> withETag(HttpStatus.CREATED, bookingService.createBooking(booking))));
+	}
+	
+	@PostMapping("/batch")
+	@ApiOperation(value = "Create bookings in batch",
+                  notes = "Each booking follows the same rules as /new and is also checked against the bookings before it in the batch. "
+                  		+ "Returns one result per booking, in request order.")
+	public CompletableFuture<List<BookingResult>> createBookings(@RequestBody List<Booking> bookings) {
+		log.debug("Received request to create bookings in batch: {}", bookings);
+		return asyncRequestExecutor.supply(() -> bookingService.createBookings(bookings));
+	}
+	
+	@PostMapping("/hold")
+	@ApiOperation(value = "Hold dates while the guest checks out",
+                  notes = "Follows the same rules as /new. The days are taken for the given minutes (10 by default, up to 30), "
+                  		+ "so no other request can book them until the hold is confirmed, released or expires.")
+	public CompletableFuture<ResponseEntity<HoldResponse>> holdBooking(@RequestBody Booking booking,
+			@RequestParam(defaultValue = "10") Integer minutes) {
+		log.debug("Received request to hold booking: {}, minutes: {}", booking, minutes);
+		return asyncRequestExecutor.supply(() -> ResponseEntity.status(HttpStatus.CREATED)
+				.body(HoldResponse.from(bookingService.holdBooking(booking, minutes))));
+	}
+	
+	@PostMapping("/hold/confirm/{id}")
+	@ApiOperation(value = "Book the held dates by the id of the hold")
+	public CompletableFuture<ResponseEntity<BookingResponse>> confirmHold(@PathVariable String id) {
+		log.debug("Received request to confirm hold with Id: {}", id);
+		return asyncRequestExecutor.supply(() -> withETag(HttpStatus.CREATED, bookingService.confirmHold(id)));
+	}
+	
+	@PostMapping("/hold/cancel/{id}")
+	@ApiOperation(value = "Release the held dates by the id of the hold")
+	public void releaseHold(@PathVariable String id) {
+		log.debug("Received request to release hold with Id: {}", id);
+		bookingService.releaseHold(id);
+	}
+	
+	@PostMapping("/waitlist")
+	@ApiOperation(value = "Book, or join the waitlist when the dates are taken",
+                  notes = "Follows the same rules as /new. When the dates conflict with existing bookings, the request waits with status WAITING "
+                  		+ "and is booked as soon as a cancellation frees the dates, in the order requests joined. Free dates are booked right away, with status PROMOTED.")
+	public CompletableFuture<ResponseEntity<WaitlistEntryResponse>> joinWaitlist(@RequestBody Booking booking) {
+		log.debug("Received request to join waitlist: {}", booking);
+		return asyncRequestExecutor.supply(() -> {
+			WaitlistEntry entry = waitlistService.joinWaitlist(booking);
+			return ResponseEntity.status(entry.getStatus()==WaitlistEntry.Status.PROMOTED ? HttpStatus.CREATED : HttpStatus.ACCEPTED)
+					.body(WaitlistEntryResponse.from(entry));
+		});
+	}
+	
+	@GetMapping("/waitlist/{id}")
+	@ApiOperation(value = "Return waitlist entry by it's id",
+                  notes = "Once PROMOTED, bookingId is the id of the booking created for the entry.")
+	public WaitlistEntryResponse returnWaitlistEntry(@PathVariable String id) {
+		log.debug("Received request to return waitlist entry with Id: {}", id);
+		return WaitlistEntryResponse.from(waitlistService.returnWaitlistEntry(id));
+	}
+	
+	@PostMapping("/waitlist/cancel/{id}")
+	@ApiOperation(value = "Leave the waitlist by the id of the entry")
+	public WaitlistEntryResponse leaveWaitlist(@PathVariable String id) {
+		log.debug("Received request to leave waitlist with entry Id: {}", id);
+		return WaitlistEntryResponse.from(waitlistService.leaveWaitlist(id));
 	}
 	
 	@PostMapping("/cancel/{id}")
 	@ApiOperation(value = "Cancel booking by it's id")
 	@ResponseStatus(value = HttpStatus.ACCEPTED)
-	public void cancelBooking(@PathVariable String id) {
-		log.info("Received request to cancel booking with Id: " + id);
-		bookingService.cancelBooking(id);
+	public CompletableFuture<Void> cancelBooking(@PathVariable String id) {
+		log.debug("Received request to cancel booking with Id: {}", id);
+		return asyncRequestExecutor.run(() -> bookingService.cancelBooking(id));
 	}
 	
 	@PostMapping("/update/{id}")
 	@ApiOperation(value = "Update booking by it's id",
-                  notes = "All fields are optional, so you can update some or all of the following values: name, startDate, endDate")
-	@ResponseStatus(value = HttpStatus.ACCEPTED)
-	public Booking updateBooking(@PathVariable String id, @RequestBody Booking booking) {
-		log.info("Received request to update booking with Id: " + id + ", Request: " + booking);
-		return bookingService.updateBooking(id, booking);
+                  notes = "All fields are optional, so you can update some or all of the following values: name, roomId, startDate, endDate. "
+                  		+ "Send the ETag received for the booking as If-Match to only update it if nobody else did in the meantime. "
+                  		+ "Requests retried with the same Idempotency-Key get the response of the first one.")
+	public CompletableFuture<ResponseEntity<BookingResponse>> updateBooking(@PathVariable String id, @RequestBody Booking booking,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestHeader(value = IdempotentRequestStore.IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+		log.debug("Received request to update booking with Id: {}, If-Match: {}, Idempotency-Key: {}, Request: {}", id, ifMatch, idempotencyKey, booking);
+		Long expectedVersion = parseVersion(ifMatch);
+		return idempotentRequestStore.execute(idempotencyKey, fingerprint("update", id, booking, expectedVersion),
+				() -> asyncRequestExecutor.supply(() -> withETag(HttpStatus.ACCEPTED, bookingService.updateBooking(id, booking, expectedVersion))));
+	}
+	
+	@GetMapping("/cache/stats")
+	@ApiOperation(value = "Return query cache statistics",
+                  notes = "Hits, misses and evictions of the cached /check queries.")
+	public Map<String, Map<String, Number>> returnCacheStats() {
+		return bookingService.returnCacheStats();
+	}
+	
+	private BookingFileFormat parseFormat(String format) {
+		if(format==null) {
+			return BookingFileFormat.CSV;
+		}
+		for(BookingFileFormat fileFormat : BookingFileFormat.values()) {
+			if(fileFormat.extension().equalsIgnoreCase(format)) {
+				return fileFormat;
+			}
+		}
+		throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be csv or ndjson");
+	}
+	
+	private ResponseEntity<BookingResponse> withETag(HttpStatus status, Booking booking) {
+		return ResponseEntity.status(status).eTag(String.valueOf(booking.getVersion())).body(BookingResponse.from(booking));
+	}
+	
+	private List<Object> fingerprint(String operation, String id, Booking booking, Long expectedVersion) {
+		//Taken before the service runs, as it fills in defaults on the request booking
+		return Arrays.asList(operation, id, booking.getName(), booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), expectedVersion);
+	}
+	
+	private List<BookingResponse> toResponses(List<Booking> bookings) {
+		return bookings.stream().map(BookingResponse::from).collect(Collectors.toList());
+	}
+	
+	private Long parseVersion(String ifMatch) {
+		//The ETag is the booking version, quoted. If-Match compares ETags strongly, so a weak one never matches
+		if(ifMatch==null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String eTag = ifMatch.trim();
+		if(eTag.startsWith("W/")) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must be a strong ETag: " + ifMatch);
+		}
+		if(eTag.length()<3 || !eTag.startsWith("\"") || !eTag.endsWith("\"")) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match is invalid: " + ifMatch);
+		}
+		try {
+			return Long.valueOf(eTag.substring(1, eTag.length() - 1));
+		} catch (NumberFormatException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "If-Match is invalid: " + ifMatch);
+		}
 	}
 }
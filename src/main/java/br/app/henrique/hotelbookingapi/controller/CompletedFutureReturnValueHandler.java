@@ -0,0 +1,74 @@
+package br.app.henrique.hotelbookingapi.controller;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+//Futures that are already done, as in synchronous mode, are written like plain return values instead of starting an async dispatch
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+	
+	private final HandlerMethodReturnValueHandlerComposite delegates;
+	
+	public CompletedFutureReturnValueHandler(HandlerMethodReturnValueHandlerComposite delegates) {
+		this.delegates = delegates;
+	}
+	
+	@Override
+	public boolean supportsReturnType(MethodParameter returnType) {
+		return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+	}
+	
+	@Override
+	public void handleReturnValue(Object returnValue, MethodParameter returnType, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest) throws Exception {
+		CompletableFuture<?> future = (CompletableFuture<?>) returnValue;
+		if(future==null || !future.isDone() || future.isCompletedExceptionally()) {
+			//Pending and failed futures are still resolved by the async dispatch, so errors keep their usual handling
+			delegates.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+			return;
+		}
+		Object value = future.join();
+		delegates.handleReturnValue(value, new CompletedValueParameter(returnType, value), mavContainer, webRequest);
+	}
+	
+	//The return type seen as the value of the future, e.g. ResponseEntity<BookingResponse> for CompletableFuture<ResponseEntity<BookingResponse>>
+	private static final class CompletedValueParameter extends MethodParameter {
+		
+		private final Class<?> valueType;
+		private final ResolvableType valueResolvableType;
+		
+		private CompletedValueParameter(MethodParameter returnType, Object value) {
+			super(returnType);
+			this.valueResolvableType = ResolvableType.forMethodParameter(returnType).getGeneric();
+			this.valueType = value!=null ? value.getClass() : valueResolvableType.toClass();
+		}
+		
+		private CompletedValueParameter(CompletedValueParameter original) {
+			super(original);
+			this.valueResolvableType = original.valueResolvableType;
+			this.valueType = original.valueType;
+		}
+		
+		@Override
+		public Class<?> getParameterType() {
+			return valueType;
+		}
+		
+		@Override
+		public Type getGenericParameterType() {
+			return valueResolvableType.getType();
+		}
+		
+		@Override
+		public CompletedValueParameter clone() {
+			return new CompletedValueParameter(this);
+		}
+	}
+	
+}
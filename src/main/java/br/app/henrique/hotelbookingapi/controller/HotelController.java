@@ -0,0 +1,77 @@
+package br.app.henrique.hotelbookingapi.controller;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.app.henrique.hotelbookingapi.model.Hotel;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.service.HotelService;
+import io.swagger.annotations.ApiOperation;
+
+@RestController
+@RequestMapping("/hotel")
+public class HotelController {
+	
+	private static final Logger log = LoggerFactory.getLogger(HotelController.class);
+	
+	@Autowired
+	HotelService hotelService;
+	
+	@GetMapping("/all")
+	@ApiOperation(value = "Return all hotels")
+	public List<Hotel> returnAllHotels() {
+		log.debug("Received request to return all hotels");
+		return hotelService.returnAllHotels();
+	}
+	
+	@PostMapping("/new")
+	@ApiOperation(value = "Create new hotel",
+                  notes = "name is required")
+	@ResponseStatus(value = HttpStatus.CREATED)
+	public Hotel createHotel(@RequestBody Hotel hotel) {
+		log.debug("Received request to create new hotel: {}", hotel);
+		return hotelService.createHotel(hotel);
+	}
+	
+	@GetMapping("/{hotelId}/rooms")
+	@ApiOperation(value = "Return all rooms of a hotel")
+	public List<Room> returnRooms(@PathVariable Long hotelId) {
+		log.debug("Received request to return rooms of hotel with Id: {}", hotelId);
+		return hotelService.returnRooms(hotelId);
+	}
+	
+	@PostMapping("/{hotelId}/room/new")
+	@ApiOperation(value = "Create new room in a hotel",
+                  notes = "name is required")
+	@ResponseStatus(value = HttpStatus.CREATED)
+	public Room createRoom(@PathVariable Long hotelId, @RequestBody Room room) {
+		log.debug("Received request to create new room in hotel with Id: {}, Request: {}", hotelId, room);
+		return hotelService.createRoom(hotelId, room);
+	}
+	
+	@GetMapping("/rooms/free")
+	@ApiOperation(value = "Find free rooms between two dates",
+                  notes = "Returns rooms with no booking from startDate to endDate, ordered by id. "
+                  		+ "hotelId is optional, to search in a single hotel, and limit defaults to 10, up to 1000.")
+	public List<Room> findFreeRooms(@RequestParam(required = false) Long hotelId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+			@RequestParam(required = false) Integer limit) {
+		log.debug("Received request to find free rooms in hotel with Id: {}, from {} to {}, limit: {}", hotelId, startDate, endDate, limit);
+		return hotelService.findFreeRooms(hotelId, startDate, endDate, limit);
+	}
+}
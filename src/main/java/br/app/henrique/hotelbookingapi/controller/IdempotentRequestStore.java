@@ -0,0 +1,121 @@
+package br.app.henrique.hotelbookingapi.controller;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class IdempotentRequestStore {
+
+	public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+	public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+	public static final String REPLAYS = "booking.idempotency.replays";
+
+	private static final Integer MAX_KEY_LENGTH = 255;
+
+	//Responses are kept as futures, so a retry arriving while the first request is still running waits for its response
+	private final Cache<String, StoredRequest> requests;
+	private final Counter replays;
+
+	public IdempotentRequestStore(MeterRegistry meterRegistry,
+			@Value("${booking.idempotency.max-keys:100000}") long maxKeys,
+			@Value("${booking.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+		requests = Caffeine.newBuilder()
+				.maximumSize(maxKeys)
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.build();
+		replays = Counter.builder(REPLAYS)
+				.description("Requests answered with the stored response of an earlier request with the same Idempotency-Key")
+				.register(meterRegistry);
+	}
+
+	public <T> CompletableFuture<ResponseEntity<T>> execute(String key, Object fingerprint, Supplier<CompletableFuture<ResponseEntity<T>>> request) {
+		if(key==null) {
+			return request.get();
+		}
+		if(key.isBlank() || key.length()>MAX_KEY_LENGTH) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+		}
+		StoredRequest storedRequest = new StoredRequest(fingerprint);
+		StoredRequest previousRequest = requests.asMap().putIfAbsent(key, storedRequest);
+		if(previousRequest!=null) {
+			return replay(previousRequest, fingerprint);
+		}
+		CompletableFuture<ResponseEntity<T>> response;
+		try {
+			response = request.get();
+		} catch (RuntimeException e) {
+			//In synchronous mode errors are thrown instead of returned in the future
+			complete(key, storedRequest, null, e);
+			throw e;
+		}
+		response.whenComplete((result, e) -> complete(key, storedRequest, result, e));
+		return response;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> CompletableFuture<ResponseEntity<T>> replay(StoredRequest previousRequest, Object fingerprint) {
+		if(!previousRequest.fingerprint.equals(fingerprint)) {
+			throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request");
+		}
+		replays.increment();
+		CompletableFuture<ResponseEntity<T>> response = previousRequest.response.thenApply(result -> replayed((ResponseEntity<T>) result));
+		if(response.isCompletedExceptionally()) {
+			//Thrown like the original error, instead of being resolved after an async dispatch
+			try {
+				response.join();
+			} catch (CompletionException e) {
+				if(e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+		return response;
+	}
+
+	private void complete(String key, StoredRequest storedRequest, ResponseEntity<?> result, Throwable e) {
+		Throwable cause = e instanceof CompletionException && e.getCause()!=null ? e.getCause() : e;
+		if(cause==null) {
+			storedRequest.response.complete(result);
+			return;
+		}
+		//Client errors are the answer to the request and are replayed, while server errors
+		//such as a full executor queue are forgotten, so a retry runs the request again
+		if(!(cause instanceof ResponseStatusException) || ((ResponseStatusException) cause).getStatus().is5xxServerError()) {
+			requests.asMap().remove(key, storedRequest);
+		}
+		storedRequest.response.completeExceptionally(cause);
+	}
+
+	private <T> ResponseEntity<T> replayed(ResponseEntity<T> result) {
+		return ResponseEntity.status(result.getStatusCode())
+				.headers(result.getHeaders())
+				.header(IDEMPOTENT_REPLAYED, "true")
+				.body(result.getBody());
+	}
+
+	private static final class StoredRequest {
+
+		private final Object fingerprint;
+		private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+		private StoredRequest(Object fingerprint) {
+			this.fingerprint = fingerprint;
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package br.app.henrique.hotelbookingapi.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import io.swagger.annotations.ApiModelProperty;
+
+//Immutable copy of a booking sent in responses, so entities are never serialized
+@JsonPropertyOrder({"id", "name", "roomId", "startDate", "endDate", "version"})
+public final class BookingResponse {
+
+	@ApiModelProperty(notes = "Id of the booking", example = "1")
+	private final Long id;
+
+	@ApiModelProperty(notes = "Name of guest", example = "John Doe")
+	private final String name;
+
+	@ApiModelProperty(notes = "Id of the booked room", example = "1")
+	private final Long roomId;
+
+	@ApiModelProperty(notes = "Start date for the booking", example = "2022-08-15")
+	private final LocalDate startDate;
+
+	@ApiModelProperty(notes = "End date for the booking", example = "2022-08-17")
+	private final LocalDate endDate;
+
+	@ApiModelProperty(notes = "Version of the booking, also sent as its ETag", example = "0")
+	private final Long version;
+
+	private BookingResponse(Long id, String name, Long roomId, LocalDate startDate, LocalDate endDate, Long version) {
+		this.id = id;
+		this.name = name;
+		this.roomId = roomId;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.version = version;
+	}
+
+	public static BookingResponse from(Booking booking) {
+		if(booking==null) {
+			return null;
+		}
+		return new BookingResponse(booking.getId(), booking.getName(), booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), booking.getVersion());
+	}
+
+	public static BookingResponse from(ArchivedBooking archivedBooking) {
+		return new BookingResponse(archivedBooking.getId(), archivedBooking.getName(), archivedBooking.getRoomId(),
+				archivedBooking.getStartDate(), archivedBooking.getEndDate(), archivedBooking.getVersion());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	@Override
+	public String toString() {
+		return "BookingResponse [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate + ", version=" + version + "]";
+	}
+
+}
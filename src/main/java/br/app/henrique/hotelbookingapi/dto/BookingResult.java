@@ -0,0 +1,60 @@
+package br.app.henrique.hotelbookingapi.dto;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import io.swagger.annotations.ApiModelProperty;
+
+public class BookingResult {
+	
+	public enum Status {
+		ACCEPTED, REJECTED
+	}
+	
+	@ApiModelProperty(notes = "Position of the booking in the request", example = "0")
+	private final int index;
+	
+	@ApiModelProperty(notes = "Whether the booking was created")
+	private final Status status;
+	
+	@ApiModelProperty(notes = "Created booking, or the requested one when rejected")
+	private final BookingResponse booking;
+	
+	@ApiModelProperty(notes = "Why the booking was rejected", example = "Stays cannot be longer than 3 days")
+	private final String reason;
+	
+	private BookingResult(int index, Status status, Booking booking, String reason) {
+		this.index = index;
+		this.status = status;
+		this.booking = BookingResponse.from(booking);
+		this.reason = reason;
+	}
+	
+	public static BookingResult accepted(int index, Booking booking) {
+		return new BookingResult(index, Status.ACCEPTED, booking, null);
+	}
+	
+	public static BookingResult rejected(int index, Booking booking, String reason) {
+		return new BookingResult(index, Status.REJECTED, booking, reason);
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public BookingResponse getBooking() {
+		return booking;
+	}
+
+	public String getReason() {
+		return reason;
+	}
+
+	@Override
+	public String toString() {
+		return "BookingResult [index=" + index + ", status=" + status + ", booking=" + booking + ", reason=" + reason + "]";
+	}
+	
+}
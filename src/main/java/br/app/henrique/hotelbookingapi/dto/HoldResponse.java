@@ -0,0 +1,75 @@
+package br.app.henrique.hotelbookingapi.dto;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import br.app.henrique.hotelbookingapi.availability.BookingHold;
+import io.swagger.annotations.ApiModelProperty;
+
+@JsonPropertyOrder({"id", "name", "roomId", "startDate", "endDate", "expiresAt"})
+public final class HoldResponse {
+
+	@ApiModelProperty(notes = "Id of the hold, needed to book or release it", example = "3f2b8c1e-6a4d-4c1b-9e7a-2d5f0b8e4a91")
+	private final String id;
+
+	@ApiModelProperty(notes = "Name of guest", example = "John Doe")
+	private final String name;
+
+	@ApiModelProperty(notes = "Id of the held room", example = "1")
+	private final Long roomId;
+
+	@ApiModelProperty(notes = "First held day", example = "2022-08-15")
+	private final LocalDate startDate;
+
+	@ApiModelProperty(notes = "Last held day", example = "2022-08-17")
+	private final LocalDate endDate;
+
+	@ApiModelProperty(notes = "When the days are released unless the hold is booked", example = "2022-08-01T10:15:30Z")
+	private final Instant expiresAt;
+
+	private HoldResponse(BookingHold hold) {
+		this.id = hold.getId();
+		this.name = hold.getName();
+		this.roomId = hold.getRoomId();
+		this.startDate = hold.getStartDate();
+		this.endDate = hold.getEndDate();
+		this.expiresAt = hold.getExpiresAt();
+	}
+
+	public static HoldResponse from(BookingHold hold) {
+		return new HoldResponse(hold);
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	@Override
+	public String toString() {
+		return "HoldResponse [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate
+				+ ", expiresAt=" + expiresAt + "]";
+	}
+
+}
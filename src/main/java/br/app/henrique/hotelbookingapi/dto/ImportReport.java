@@ -0,0 +1,71 @@
+package br.app.henrique.hotelbookingapi.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+
+public final class ImportReport {
+
+	public enum Status {
+		RUNNING, COMPLETED, FAILED
+	}
+
+	@ApiModelProperty(notes = "Whether the import is still running, has read the whole file, or stopped at an invalid record")
+	private final Status status;
+
+	@ApiModelProperty(notes = "Records of the file already imported, counted from its first record. Send it as offset to restart the import after them", example = "250000")
+	private final long nextOffset;
+
+	@ApiModelProperty(notes = "Bookings written by this import", example = "250000")
+	private final long imported;
+
+	@ApiModelProperty(notes = "Time since the import started, in milliseconds", example = "2300")
+	private final long elapsedMillis;
+
+	@ApiModelProperty(notes = "Why the import stopped", example = "Record 250000: bookings must be sorted by roomId and startDate")
+	private final String error;
+
+	private ImportReport(Status status, long nextOffset, long imported, long elapsedMillis, String error) {
+		this.status = status;
+		this.nextOffset = nextOffset;
+		this.imported = imported;
+		this.elapsedMillis = elapsedMillis;
+		this.error = error;
+	}
+
+	public static ImportReport running(long nextOffset, long imported, long elapsedMillis) {
+		return new ImportReport(Status.RUNNING, nextOffset, imported, elapsedMillis, null);
+	}
+
+	public static ImportReport completed(long nextOffset, long imported, long elapsedMillis) {
+		return new ImportReport(Status.COMPLETED, nextOffset, imported, elapsedMillis, null);
+	}
+
+	public static ImportReport failed(long nextOffset, long imported, long elapsedMillis, String error) {
+		return new ImportReport(Status.FAILED, nextOffset, imported, elapsedMillis, error);
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public long getNextOffset() {
+		return nextOffset;
+	}
+
+	public long getImported() {
+		return imported;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return "ImportReport [status=" + status + ", nextOffset=" + nextOffset + ", imported=" + imported + ", elapsedMillis=" + elapsedMillis + ", error=" + error + "]";
+	}
+
+}
@@ -0,0 +1,82 @@
+package br.app.henrique.hotelbookingapi.dto;
+
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+import io.swagger.annotations.ApiModelProperty;
+
+@JsonPropertyOrder({"id", "name", "roomId", "startDate", "endDate", "status", "bookingId"})
+public final class WaitlistEntryResponse {
+
+	@ApiModelProperty(notes = "Id of the waitlist entry", example = "1")
+	private final Long id;
+
+	@ApiModelProperty(notes = "Name of guest", example = "John Doe")
+	private final String name;
+
+	@ApiModelProperty(notes = "Id of the requested room", example = "1")
+	private final Long roomId;
+
+	@ApiModelProperty(notes = "Requested start date", example = "2022-08-15")
+	private final LocalDate startDate;
+
+	@ApiModelProperty(notes = "Requested end date", example = "2022-08-17")
+	private final LocalDate endDate;
+
+	@ApiModelProperty(notes = "WAITING until the dates are freed, then PROMOTED to a booking, or EXPIRED once they can no longer be booked")
+	private final WaitlistEntry.Status status;
+
+	@ApiModelProperty(notes = "Id of the booking the entry was promoted to", example = "42")
+	private final Long bookingId;
+
+	private WaitlistEntryResponse(WaitlistEntry entry) {
+		this.id = entry.getId();
+		this.name = entry.getName();
+		this.roomId = entry.getRoomId();
+		this.startDate = entry.getStartDate();
+		this.endDate = entry.getEndDate();
+		this.status = entry.getStatus();
+		this.bookingId = entry.getBookingId();
+	}
+
+	public static WaitlistEntryResponse from(WaitlistEntry entry) {
+		return new WaitlistEntryResponse(entry);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public WaitlistEntry.Status getStatus() {
+		return status;
+	}
+
+	public Long getBookingId() {
+		return bookingId;
+	}
+
+	@Override
+	public String toString() {
+		return "WaitlistEntryResponse [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate
+				+ ", status=" + status + ", bookingId=" + bookingId + "]";
+	}
+
+}
@@ -0,0 +1,101 @@
+package br.app.henrique.hotelbookingapi.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	public static final String REJECTIONS = "booking.rate-limit.rejections";
+
+	private final RateLimitProperties rateLimitProperties;
+
+	//Each client has its own read and write buckets, so only the clients over their budget are slowed down
+	private final Cache<String, TokenBucket> readBuckets;
+	private final Cache<String, TokenBucket> writeBuckets;
+
+	private final Counter readRejections;
+	private final Counter writeRejections;
+
+	public RateLimitFilter(RateLimitProperties rateLimitProperties, MeterRegistry meterRegistry) {
+		this.rateLimitProperties = rateLimitProperties;
+		readBuckets = newBucketCache();
+		writeBuckets = newBucketCache();
+		readRejections = rejectionCounter(meterRegistry, "read");
+		writeRejections = rejectionCounter(meterRegistry, "write");
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String client = clientOf(request);
+		long now = System.nanoTime();
+		long waitNanos;
+		Counter rejections;
+		if(isRead(request)) {
+			waitNanos = readBuckets.get(client, key -> new TokenBucket(rateLimitProperties.getReadsPerSecond(), rateLimitProperties.getReadBurst(), now)).tryTake(now);
+			rejections = readRejections;
+		} else {
+			waitNanos = writeBuckets.get(client, key -> new TokenBucket(rateLimitProperties.getWritesPerSecond(), rateLimitProperties.getWriteBurst(), now)).tryTake(now);
+			rejections = writeRejections;
+		}
+		if(waitNanos > 0) {
+			rejections.increment();
+			//Retry-After is in whole seconds, rounded up so the client does not retry too early
+			long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+			response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+			response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests, please retry in " + retryAfterSeconds + " seconds");
+			return;
+		}
+		filterChain.doFilter(request, response);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		//Only the booking API is limited, not the actuator, swagger or error pages
+		return !rateLimitProperties.isEnabled() || !request.getRequestURI().startsWith(request.getContextPath() + "/booking");
+	}
+
+	private boolean isRead(HttpServletRequest request) {
+		//Checking bookings is a POST, but it does not change anything
+		String method = request.getMethod();
+		return method.equals("GET") || method.equals("HEAD") || request.getRequestURI().endsWith("/booking/check");
+	}
+
+	private String clientOf(HttpServletRequest request) {
+		String apiKey = request.getHeader(rateLimitProperties.getApiKeyHeader());
+		return apiKey != null && rateLimitProperties.getApiKeys().contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+	}
+
+	private Cache<String, TokenBucket> newBucketCache() {
+		return Caffeine.newBuilder()
+				.maximumSize(rateLimitProperties.getMaxClients())
+				.expireAfterAccess(Duration.ofSeconds(rateLimitProperties.getIdleClientSeconds()))
+				.build();
+	}
+
+	private Counter rejectionCounter(MeterRegistry meterRegistry, String budget) {
+		return Counter.builder(REJECTIONS)
+				.description("Requests rejected because the client was over its rate limit")
+				.tag("budget", budget)
+				.register(meterRegistry);
+	}
+
+}
@@ -0,0 +1,102 @@
+package br.app.henrique.hotelbookingapi.filter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "booking.rate-limit")
+public class RateLimitProperties {
+
+	private boolean enabled = false;
+
+	//Clients sending one of the known keys in this header are limited by the key, the others by their IP address.
+	//Unknown keys are ignored, so a client cannot get a fresh budget by sending a new key with every request
+	private String apiKeyHeader = "X-API-Key";
+	private Set<String> apiKeys = new HashSet<>();
+
+	//Requests per second each client can sustain, and how many it can send at once after being idle
+	private double readsPerSecond = 50;
+	private int readBurst = 100;
+	private double writesPerSecond = 10;
+	private int writeBurst = 20;
+
+	//Clients not seen for this long are forgotten, and start again with a full budget
+	private long idleClientSeconds = 600;
+	private long maxClients = 100000;
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getApiKeyHeader() {
+		return apiKeyHeader;
+	}
+
+	public void setApiKeyHeader(String apiKeyHeader) {
+		this.apiKeyHeader = apiKeyHeader;
+	}
+
+	public Set<String> getApiKeys() {
+		return apiKeys;
+	}
+
+	public void setApiKeys(Set<String> apiKeys) {
+		this.apiKeys = apiKeys;
+	}
+
+	public double getReadsPerSecond() {
+		return readsPerSecond;
+	}
+
+	public void setReadsPerSecond(double readsPerSecond) {
+		this.readsPerSecond = readsPerSecond;
+	}
+
+	public int getReadBurst() {
+		return readBurst;
+	}
+
+	public void setReadBurst(int readBurst) {
+		this.readBurst = readBurst;
+	}
+
+	public double getWritesPerSecond() {
+		return writesPerSecond;
+	}
+
+	public void setWritesPerSecond(double writesPerSecond) {
+		this.writesPerSecond = writesPerSecond;
+	}
+
+	public int getWriteBurst() {
+		return writeBurst;
+	}
+
+	public void setWriteBurst(int writeBurst) {
+		this.writeBurst = writeBurst;
+	}
+
+	public long getIdleClientSeconds() {
+		return idleClientSeconds;
+	}
+
+	public void setIdleClientSeconds(long idleClientSeconds) {
+		this.idleClientSeconds = idleClientSeconds;
+	}
+
+	public long getMaxClients() {
+		return maxClients;
+	}
+
+	public void setMaxClients(long maxClients) {
+		this.maxClients = maxClients;
+	}
+
+}
@@ -0,0 +1,109 @@
+package br.app.henrique.hotelbookingapi.filter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+@Component
+public class RequestLoggingFilter extends OncePerRequestFilter {
+	
+	private static final Logger log = LoggerFactory.getLogger(RequestLoggingFilter.class);
+	
+	@Autowired
+	RequestLoggingProperties requestLoggingProperties;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		long startTime = System.nanoTime();
+		boolean failed = true;
+		try {
+			filterChain.doFilter(request, response);
+			failed = false;
+		} finally {
+			//The mapping pattern is only known once the request has been dispatched, and is replaced by error dispatches
+			Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+			String endpoint = pattern != null ? pattern.toString() : request.getRequestURI();
+			if(failed) {
+				//Unhandled exceptions are only turned into a server error by the container, after this filter returns
+				logRequest(request, endpoint, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, startTime);
+			} else if(request.isAsyncStarted()) {
+				//Status and duration are only final once the async request completes
+				request.getAsyncContext().addListener(new CompletionListener(request, response, endpoint, startTime));
+			} else {
+				logRequest(request, endpoint, response.getStatus(), startTime);
+			}
+		}
+	}
+	
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		//Async requests are logged once, by the listener added to the initial dispatch
+		return true;
+	}
+	
+	private void logRequest(HttpServletRequest request, String endpoint, int status, long startTime) {
+		if(status >= 500 || isSampled(endpoint)) {
+			log.info("method={} endpoint={} uri={} status={} durationMs={}",
+					request.getMethod(), endpoint, request.getRequestURI(), status,
+					(System.nanoTime() - startTime) / 1_000_000);
+		}
+	}
+	
+	private boolean isSampled(String endpoint) {
+		if(!log.isInfoEnabled()) {
+			return false;
+		}
+		double sampleRate = requestLoggingProperties.sampleRateFor(endpoint);
+		return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+	}
+	
+	private final class CompletionListener implements AsyncListener {
+		
+		private final HttpServletRequest request;
+		private final HttpServletResponse response;
+		private final String endpoint;
+		private final long startTime;
+		
+		private CompletionListener(HttpServletRequest request, HttpServletResponse response, String endpoint, long startTime) {
+			this.request = request;
+			this.response = response;
+			this.endpoint = endpoint;
+			this.startTime = startTime;
+		}
+		
+		@Override
+		public void onComplete(AsyncEvent event) {
+			//Also called after errors and timeouts, once their response has been written
+			logRequest(request, endpoint, response.getStatus(), startTime);
+		}
+		
+		@Override
+		public void onTimeout(AsyncEvent event) {
+		}
+		
+		@Override
+		public void onError(AsyncEvent event) {
+		}
+		
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			//Listeners are cleared when the request goes async again, e.g. from an error dispatch
+			event.getAsyncContext().addListener(this);
+		}
+	}
+	
+}
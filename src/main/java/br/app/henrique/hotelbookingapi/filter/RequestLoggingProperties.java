@@ -0,0 +1,39 @@
+package br.app.henrique.hotelbookingapi.filter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "booking.request-logging")
+public class RequestLoggingProperties {
+	
+	//Share of requests logged, from 0 (none) to 1 (all)
+	private double defaultSampleRate = 1.0;
+	
+	//Sample rate per endpoint, keyed by its mapping pattern, e.g. /booking/update/{id}
+	private Map<String, Double> sampleRates = new HashMap<>();
+
+	public double getDefaultSampleRate() {
+		return defaultSampleRate;
+	}
+
+	public void setDefaultSampleRate(double defaultSampleRate) {
+		this.defaultSampleRate = defaultSampleRate;
+	}
+
+	public Map<String, Double> getSampleRates() {
+		return sampleRates;
+	}
+
+	public void setSampleRates(Map<String, Double> sampleRates) {
+		this.sampleRates = sampleRates;
+	}
+	
+	public double sampleRateFor(String endpoint) {
+		return sampleRates.getOrDefault(endpoint, defaultSampleRate);
+	}
+	
+}
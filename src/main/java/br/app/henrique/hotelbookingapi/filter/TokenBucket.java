@@ -0,0 +1,34 @@
+package br.app.henrique.hotelbookingapi.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class TokenBucket {
+
+	//The bucket is kept as the time at which it will be full again, so taking a token is a single compare-and-set
+	//instead of updating the token count and the refill time together under a lock
+	private final AtomicLong fullAt;
+	private final long nanosPerToken;
+	private final long capacityNanos;
+
+	public TokenBucket(double tokensPerSecond, int capacity, long nanoTime) {
+		this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / tokensPerSecond);
+		this.capacityNanos = nanosPerToken * capacity;
+		this.fullAt = new AtomicLong(nanoTime);
+	}
+
+	//Returns 0 when a token was taken, otherwise how many nanoseconds until one is available
+	public long tryTake(long nanoTime) {
+		while(true) {
+			long current = fullAt.get();
+			long next = Math.max(current, nanoTime) + nanosPerToken;
+			if(next - nanoTime > capacityNanos) {
+				return next - nanoTime - capacityNanos;
+			}
+			if(fullAt.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package br.app.henrique.hotelbookingapi.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class BookingMetrics {
+	
+	public static final String REJECTIONS = "booking.rejections";
+	public static final String UPDATE_RETRIES = "booking.update.retries";
+	
+	//Counters are registered up front, so counting a rejection is a map lookup and an increment
+	private final Map<RejectionReason, Counter> rejections = new EnumMap<>(RejectionReason.class);
+	private final Counter updateRetries;
+	
+	public BookingMetrics(MeterRegistry meterRegistry) {
+		for(RejectionReason reason : RejectionReason.values()) {
+			rejections.put(reason, Counter.builder(REJECTIONS)
+					.description("Booking requests rejected by validation or availability rules")
+					.tag("reason", reason.tag())
+					.register(meterRegistry));
+		}
+		updateRetries = Counter.builder(UPDATE_RETRIES)
+				.description("Booking updates applied again after a concurrent update changed the booking")
+				.register(meterRegistry);
+	}
+	
+	public void rejected(RejectionReason reason) {
+		rejections.get(reason).increment();
+	}
+	
+	public void updateRetried() {
+		updateRetries.increment();
+	}
+	
+}
@@ -0,0 +1,18 @@
+package br.app.henrique.hotelbookingapi.metrics;
+
+public enum RejectionReason {
+	NAME_MISSING,
+	DATES_MISSING,
+	DATE_ORDER,
+	STAY_TOO_LONG,
+	TOO_FAR_IN_ADVANCE,
+	START_DATE_NOT_IN_FUTURE,
+	ROOM_NOT_FOUND,
+	VERSION_MISMATCH,
+	CONCURRENT_UPDATE,
+	CONFLICT;
+	
+	public String tag() {
+		return name().toLowerCase();
+	}
+}
@@ -0,0 +1,157 @@
+package br.app.henrique.hotelbookingapi.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+//Booking that has already ended, moved out of the booking table so queries on current bookings stay small
+@Entity
+@Table(name = "booking_archive", indexes = {
+		@Index(name = "idx_booking_archive_start_end", columnList = "startDate, endDate"),
+		@Index(name = "idx_booking_archive_room_start", columnList = "roomId, startDate")})
+public class ArchivedBooking implements Persistable<Long> {
+
+	//Same id the booking had, so archived bookings can still be found by it
+	@Id
+	private Long id;
+
+	private String name;
+
+	private Long roomId;
+
+	private LocalDate startDate;
+
+	private LocalDate endDate;
+
+	private Long version;
+
+	private LocalDateTime archivedAt;
+
+	//The id is copied from the booking, so saving a new archived booking must not look it up first to merge it
+	@Transient
+	private boolean isNew = true;
+
+	public ArchivedBooking() {
+		super();
+	}
+
+	public ArchivedBooking(Booking booking, LocalDateTime archivedAt) {
+		this.id = booking.getId();
+		this.name = booking.getName();
+		this.roomId = booking.getRoomId();
+		this.startDate = booking.getStartDate();
+		this.endDate = booking.getEndDate();
+		this.version = booking.getVersion();
+		this.archivedAt = archivedAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public void setRoomId(Long roomId) {
+		this.roomId = roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public void setStartDate(LocalDate startDate) {
+		this.startDate = startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public void setEndDate(LocalDate endDate) {
+		this.endDate = endDate;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
+	public LocalDateTime getArchivedAt() {
+		return archivedAt;
+	}
+
+	public void setArchivedAt(LocalDateTime archivedAt) {
+		this.archivedAt = archivedAt;
+	}
+
+	//Ids of the journal store and of imported rows can collide, so a row with the booking's id is not enough to tell it was archived
+	public boolean isArchiveOf(Booking booking) {
+		return Objects.equals(id, booking.getId()) && Objects.equals(name, booking.getName()) && Objects.equals(roomId, booking.getRoomId())
+				&& Objects.equals(startDate, booking.getStartDate()) && Objects.equals(endDate, booking.getEndDate())
+				&& Objects.equals(version, booking.getVersion());
+	}
+
+	@Override
+	public boolean isNew() {
+		return isNew;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		isNew = false;
+	}
+
+	@Override
+	public String toString() {
+		return "ArchivedBooking [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate + ", version=" + version + ", archivedAt=" + archivedAt + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(archivedAt, endDate, id, name, roomId, startDate, version);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ArchivedBooking other = (ArchivedBooking) obj;
+		return Objects.equals(archivedAt, other.archivedAt) && Objects.equals(endDate, other.endDate)
+				&& Objects.equals(id, other.id) && Objects.equals(name, other.name)
+				&& Objects.equals(roomId, other.roomId) && Objects.equals(startDate, other.startDate)
+				&& Objects.equals(version, other.version);
+	}
+
+}
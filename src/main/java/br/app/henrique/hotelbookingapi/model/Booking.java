@@ -7,16 +7,27 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 
 import org.springframework.lang.NonNull;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.swagger.annotations.ApiModelProperty;
 
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_booking_start_end", columnList = "startDate, endDate"),
+		@Index(name = "idx_booking_end_start", columnList = "endDate, startDate"),
+		@Index(name = "idx_booking_room_start_end", columnList = "roomId, startDate, endDate")})
 public class Booking {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "booking_seq")
+	@SequenceGenerator(name = "booking_seq", sequenceName = "booking_seq", allocationSize = 50)
 	@ApiModelProperty(required = false, hidden = true)
 	private Long id;
 	
@@ -24,6 +35,9 @@ public class Booking {
 	@ApiModelProperty(notes = "Name of guest", example = "John Doe")
 	private String name;
 	
+	@ApiModelProperty(notes = "Id of the booked room. Bookings without a room are for the first room of the first hotel", example = "1")
+	private Long roomId;
+	
 	@NonNull
 	@ApiModelProperty(notes = "Start date for the booking", example = "2022-08-15")
 	private LocalDate startDate;
@@ -31,13 +45,24 @@ public class Booking {
 	@NonNull
 	@ApiModelProperty(notes = "End date for the booking", example = "2022-08-17")
 	private LocalDate endDate;
+	
+	//Sent back as the ETag of the booking, and only ever changed by the database
+	@Version
+	@JsonProperty(access = JsonProperty.Access.READ_ONLY)
+	@ApiModelProperty(required = false, hidden = true)
+	private Long version;
 		
 	public Booking() {
 		super();
 	}
 	
 	public Booking(String name, LocalDate startDate, LocalDate endDate) {
+		this(name, Room.DEFAULT_ROOM_ID, startDate, endDate);
+	}
+	
+	public Booking(String name, Long roomId, LocalDate startDate, LocalDate endDate) {
 		this.name = name;
+		this.roomId = roomId;
 		this.startDate = startDate;
 		this.endDate = endDate;
 	}
@@ -58,6 +83,14 @@ public class Booking {
 		this.name = name;
 	}
 	
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public void setRoomId(Long roomId) {
+		this.roomId = roomId;
+	}
+	
 	public LocalDate getStartDate() {
 		return startDate;
 	}
@@ -74,14 +107,22 @@ public class Booking {
 		this.endDate = endDate;
 	}
 
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
+
 	@Override
 	public String toString() {
-		return "Booking [id=" + id + ", name=" + name + ", startDate=" + startDate + ", endDate=" + endDate + "]";
+		return "Booking [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate + ", version=" + version + "]";
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(endDate, id, name, startDate);
+		return Objects.hash(endDate, id, name, roomId, startDate, version);
 	}
 
 	@Override
@@ -94,7 +135,8 @@ public class Booking {
 			return false;
 		Booking other = (Booking) obj;
 		return Objects.equals(endDate, other.endDate) && Objects.equals(id, other.id)
-				&& Objects.equals(name, other.name) && Objects.equals(startDate, other.startDate);
+				&& Objects.equals(name, other.name) && Objects.equals(roomId, other.roomId)
+				&& Objects.equals(startDate, other.startDate) && Objects.equals(version, other.version);
 	}	
 		
 }
@@ -0,0 +1,74 @@
+package br.app.henrique.hotelbookingapi.model;
+
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+
+import org.springframework.lang.NonNull;
+
+import io.swagger.annotations.ApiModelProperty;
+
+@Entity
+public class Hotel {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hotel_seq")
+	@SequenceGenerator(name = "hotel_seq", sequenceName = "hotel_seq", allocationSize = 50)
+	@ApiModelProperty(required = false, hidden = true)
+	private Long id;
+	
+	@NonNull
+	@ApiModelProperty(notes = "Name of hotel", example = "Hotel Copacabana")
+	private String name;
+	
+	public Hotel() {
+		super();
+	}
+	
+	public Hotel(String name) {
+		this.name = name;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public String toString() {
+		return "Hotel [id=" + id + ", name=" + name + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(id, name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Hotel other = (Hotel) obj;
+		return Objects.equals(id, other.id) && Objects.equals(name, other.name);
+	}
+		
+}
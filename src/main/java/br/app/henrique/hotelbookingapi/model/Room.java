@@ -0,0 +1,93 @@
+package br.app.henrique.hotelbookingapi.model;
+
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import org.springframework.lang.NonNull;
+
+import io.swagger.annotations.ApiModelProperty;
+
+@Entity
+@Table(indexes = @Index(name = "idx_room_hotel", columnList = "hotelId"))
+public class Room {
+	
+	//Room of the hotel created on an empty database, used by bookings that do not inform a room
+	public static final Long DEFAULT_ROOM_ID = 1l;
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "room_seq")
+	@SequenceGenerator(name = "room_seq", sequenceName = "room_seq", allocationSize = 50)
+	@ApiModelProperty(required = false, hidden = true)
+	private Long id;
+	
+	@NonNull
+	@ApiModelProperty(notes = "Name or number of room", example = "101")
+	private String name;
+	
+	@ApiModelProperty(required = false, hidden = true)
+	private Long hotelId;
+	
+	public Room() {
+		super();
+	}
+	
+	public Room(String name, Long hotelId) {
+		this.name = name;
+		this.hotelId = hotelId;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Long getHotelId() {
+		return hotelId;
+	}
+
+	public void setHotelId(Long hotelId) {
+		this.hotelId = hotelId;
+	}
+
+	@Override
+	public String toString() {
+		return "Room [id=" + id + ", name=" + name + ", hotelId=" + hotelId + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(hotelId, id, name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Room other = (Room) obj;
+		return Objects.equals(hotelId, other.hotelId) && Objects.equals(id, other.id)
+				&& Objects.equals(name, other.name);
+	}
+		
+}
@@ -0,0 +1,155 @@
+package br.app.henrique.hotelbookingapi.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+//Booking request rejected because its dates were taken, kept until a cancellation frees them
+@Entity
+@Table(indexes = @Index(name = "idx_waitlist_room_status", columnList = "roomId, status, id"))
+public class WaitlistEntry {
+
+	public enum Status {
+		WAITING, PROMOTED, EXPIRED, CANCELLED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "waitlist_seq")
+	@SequenceGenerator(name = "waitlist_seq", sequenceName = "waitlist_seq", allocationSize = 50)
+	private Long id;
+
+	private String name;
+
+	private Long roomId;
+
+	private LocalDate startDate;
+
+	private LocalDate endDate;
+
+	@Enumerated(EnumType.STRING)
+	private Status status;
+
+	//Booking created when the entry was promoted
+	private Long bookingId;
+
+	private LocalDateTime createdAt;
+
+	public WaitlistEntry() {
+		super();
+	}
+
+	public WaitlistEntry(Booking booking, LocalDateTime createdAt) {
+		this.name = booking.getName();
+		this.roomId = booking.getRoomId();
+		this.startDate = booking.getStartDate();
+		this.endDate = booking.getEndDate();
+		this.status = Status.WAITING;
+		this.createdAt = createdAt;
+	}
+
+	public void promote(Long bookingId) {
+		this.status = Status.PROMOTED;
+		this.bookingId = bookingId;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public void setRoomId(Long roomId) {
+		this.roomId = roomId;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public void setStartDate(LocalDate startDate) {
+		this.startDate = startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public void setEndDate(LocalDate endDate) {
+		this.endDate = endDate;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Long getBookingId() {
+		return bookingId;
+	}
+
+	public void setBookingId(Long bookingId) {
+		this.bookingId = bookingId;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@Override
+	public String toString() {
+		return "WaitlistEntry [id=" + id + ", name=" + name + ", roomId=" + roomId + ", startDate=" + startDate + ", endDate=" + endDate
+				+ ", status=" + status + ", bookingId=" + bookingId + ", createdAt=" + createdAt + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(bookingId, createdAt, endDate, id, name, roomId, startDate, status);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		WaitlistEntry other = (WaitlistEntry) obj;
+		return Objects.equals(bookingId, other.bookingId) && Objects.equals(createdAt, other.createdAt)
+				&& Objects.equals(endDate, other.endDate) && Objects.equals(id, other.id)
+				&& Objects.equals(name, other.name) && Objects.equals(roomId, other.roomId)
+				&& Objects.equals(startDate, other.startDate) && status == other.status;
+	}
+
+}
@@ -0,0 +1,26 @@
+package br.app.henrique.hotelbookingapi.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long>{
+
+	@Query(value = "select a from ArchivedBooking a "
+			+ "where a.startDate <= :endDate and a.endDate >= :startDate "
+			+ "and a.id > :afterId "
+			+ "order by a.id ASC")
+	List<ArchivedBooking> getArchivedBookingsByDateAfterId(LocalDate startDate, LocalDate endDate, Long afterId, Pageable pageable);
+
+	@Query(value = "select a from ArchivedBooking a "
+			+ "where a.roomId = :roomId "
+			+ "and a.startDate <= :endDate and a.endDate >= :startDate "
+			+ "order by a.startDate ASC")
+	List<ArchivedBooking> getArchivedBookingsByRoomAndDate(Long roomId, LocalDate startDate, LocalDate endDate);
+
+}
@@ -1,26 +1,59 @@
 package br.app.henrique.hotelbookingapi.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import br.app.henrique.hotelbookingapi.model.Booking;
 
-public interface BookingRepository extends JpaRepository<Booking, Long>{
+public interface BookingRepository extends JpaRepository<Booking, Long>, BookingStore{
 
+	//A single range predicate on both columns, so the start_date/end_date indexes can be used
 	@Query(value = "select a from Booking a "
-			+ "where (a.startDate >= :startDate and a.startDate <= :endDate) "
-			+ "or (a.endDate >= :startDate and a.endDate <= :endDate) "
+			+ "where a.startDate <= :endDate and a.endDate >= :startDate "
 			+ "order by a.startDate ASC")
 	List<Booking> getBookingsByDate(LocalDate startDate, LocalDate endDate);
 	
 	@Query(value = "select a from Booking a "
-			+ "where a.id != :idToIgnore "
-			+ "and ((a.startDate >= :startDate and a.startDate <= :endDate) "
-			+ "or (a.endDate >= :startDate and a.endDate <= :endDate)) "
+			+ "where a.roomId = :roomId "
+			+ "and a.startDate <= :endDate and a.endDate >= :startDate "
+			+ "and a.id != :idToIgnore "
 			+ "order by a.startDate ASC")
-	List<Booking> getBookingsByDateIgnoringId(LocalDate startDate, LocalDate endDate, Long idToIgnore);
+	List<Booking> getBookingsByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore);
+	
+	@Query(value = "select case when count(a) > 0 then true else false end from Booking a "
+			+ "where a.roomId = :roomId "
+			+ "and a.startDate <= :endDate and a.endDate >= :startDate "
+			+ "and a.id != :idToIgnore")
+	boolean existsBookingByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore);
+	
+	List<Booking> findByEndDateGreaterThanEqual(LocalDate date);
+	
+	@Query(value = "select a from Booking a "
+			+ "where a.id > :afterId "
+			+ "order by a.id ASC")
+	List<Booking> getBookingsAfterId(Long afterId, Pageable pageable);
+	
+	@Query(value = "select a from Booking a "
+			+ "where a.endDate < :date "
+			+ "order by a.endDate ASC, a.id ASC")
+	List<Booking> getBookingsEndedBefore(LocalDate date, Pageable pageable);
+	
+	@QueryHints(value = {
+			@QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+			@QueryHint(name = HINT_READONLY, value = "true")})
+	@Query(value = "select a from Booking a "
+			+ "order by a.id ASC")
+	Stream<Booking> streamAllBookings();
 	
 }
@@ -0,0 +1,41 @@
+package br.app.henrique.hotelbookingapi.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+
+//Operations the services need from wherever bookings are stored, implemented by the database and the journal store
+public interface BookingStore {
+
+	<S extends Booking> S save(S booking);
+
+	<S extends Booking> List<S> saveAllAndFlush(Iterable<S> bookings);
+
+	Optional<Booking> findById(Long id);
+
+	List<Booking> findAll();
+
+	void deleteById(Long id);
+
+	void deleteAll(Iterable<? extends Booking> bookings);
+
+	List<Booking> getBookingsByDate(LocalDate startDate, LocalDate endDate);
+
+	List<Booking> getBookingsByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore);
+
+	boolean existsBookingByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore);
+
+	List<Booking> findByEndDateGreaterThanEqual(LocalDate date);
+
+	List<Booking> getBookingsAfterId(Long afterId, Pageable pageable);
+
+	List<Booking> getBookingsEndedBefore(LocalDate date, Pageable pageable);
+
+	Stream<Booking> streamAllBookings();
+
+}
@@ -0,0 +1,9 @@
+package br.app.henrique.hotelbookingapi.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.app.henrique.hotelbookingapi.model.Hotel;
+
+public interface HotelRepository extends JpaRepository<Hotel, Long>{
+
+}
@@ -0,0 +1,13 @@
+package br.app.henrique.hotelbookingapi.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.app.henrique.hotelbookingapi.model.Room;
+
+public interface RoomRepository extends JpaRepository<Room, Long>{
+
+	List<Room> findByHotelIdOrderByIdAsc(Long hotelId);
+	
+}
@@ -0,0 +1,34 @@
+package br.app.henrique.hotelbookingapi.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long>{
+
+	//Oldest first, so guests are promoted in the order they joined the waitlist
+	@Query(value = "select w from WaitlistEntry w "
+			+ "where w.roomId = :roomId and w.status = :status "
+			+ "and w.startDate > :today "
+			+ "order by w.id ASC")
+	List<WaitlistEntry> getEntriesByRoomAndStatusStartingAfter(Long roomId, WaitlistEntry.Status status, LocalDate today);
+
+	@Modifying
+	@Query(value = "update WaitlistEntry w set w.status = :newStatus "
+			+ "where w.status = :status and w.startDate <= :today")
+	int updateStatusOfEntriesStartingUntil(WaitlistEntry.Status status, WaitlistEntry.Status newStatus, LocalDate today);
+
+	//Only changes an entry still in the expected status, so the matcher and a guest leaving never both change it
+	@Transactional
+	@Modifying
+	@Query(value = "update WaitlistEntry w set w.status = :newStatus "
+			+ "where w.id = :id and w.status = :status")
+	int updateStatus(Long id, WaitlistEntry.Status status, WaitlistEntry.Status newStatus);
+
+}
@@ -0,0 +1,302 @@
+package br.app.henrique.hotelbookingapi.repository.journal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+
+//Append-only log of booking changes, written through memory-mapped regions of journal-<generation>.log.
+//snapshot-<generation>.bin holds every booking written before journal-<generation>.log,
+//so recovery reads the latest snapshot and replays only the journals from its generation on.
+final class BookingJournal {
+	
+	private static final int JOURNAL_MAGIC = 0x424B4A4C;
+	private static final int SNAPSHOT_MAGIC = 0x424B534E;
+	private static final int HEADER_SIZE = 8;
+	private static final int NEXT_REGION = -1;
+	private static final byte PUT = 1;
+	private static final byte DELETE = 2;
+	private static final long NULL_VALUE = Long.MIN_VALUE;
+	
+	private final Path directory;
+	private final int regionSize;
+	private final boolean forceOnWrite;
+	private final CRC32 crc = new CRC32();
+	
+	private long generation;
+	private FileChannel channel;
+	private MappedByteBuffer region;
+	private long regionOffset;
+	private int recordStart;
+	
+	BookingJournal(Path directory, int regionSize, boolean forceOnWrite) {
+		this.directory = directory;
+		this.regionSize = regionSize;
+		this.forceOnWrite = forceOnWrite;
+	}
+	
+	//Returns the highest booking id found, so ids are never reused after a restart
+	long recover(Map<Long, Booking> bookings) throws IOException {
+		Files.createDirectories(directory);
+		long lastId = 0;
+		long snapshotGeneration = -1;
+		List<Long> snapshots = generations("snapshot-", ".bin");
+		if(!snapshots.isEmpty()) {
+			snapshotGeneration = snapshots.get(snapshots.size() - 1);
+			lastId = readSnapshot(file("snapshot-", snapshotGeneration, ".bin"), bookings);
+		}
+		long lastGeneration = snapshotGeneration;
+		for(Long journalGeneration : generations("journal-", ".log")) {
+			if(journalGeneration>=snapshotGeneration) {
+				lastId = Math.max(lastId, replay(file("journal-", journalGeneration, ".log"), bookings));
+			}
+			lastGeneration = Math.max(lastGeneration, journalGeneration);
+		}
+		open(lastGeneration + 1);
+		return lastId;
+	}
+	
+	void appendPut(Booking booking) throws IOException {
+		byte[] name = booking.getName()==null ? null : booking.getName().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer record = startRecord(1 + 8 * 5 + 4 + (name==null ? 0 : name.length));
+		record.put(PUT);
+		record.putLong(booking.getId());
+		record.putLong(booking.getVersion());
+		record.putLong(orNull(booking.getRoomId()));
+		record.putLong(booking.getStartDate()==null ? NULL_VALUE : booking.getStartDate().toEpochDay());
+		record.putLong(booking.getEndDate()==null ? NULL_VALUE : booking.getEndDate().toEpochDay());
+		record.putInt(name==null ? -1 : name.length);
+		if(name!=null) record.put(name);
+		endRecord();
+	}
+	
+	void appendDelete(Long id) throws IOException {
+		ByteBuffer record = startRecord(1 + 8);
+		record.put(DELETE);
+		record.putLong(id);
+		endRecord();
+	}
+	
+	void force() {
+		region.force();
+	}
+	
+	//Starts the next journal and returns its generation, to be used for the snapshot of the current state
+	long rotate() throws IOException {
+		close();
+		open(generation + 1);
+		return generation;
+	}
+	
+	void writeSnapshot(long snapshotGeneration, Collection<Booking> bookings, long lastId) throws IOException {
+		Path snapshot = file("snapshot-", snapshotGeneration, ".bin");
+		Path temporary = directory.resolve(snapshot.getFileName() + ".tmp");
+		try(FileOutputStream file = new FileOutputStream(temporary.toFile());
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.writeLong(lastId);
+			out.writeInt(bookings.size());
+			for(Booking booking : bookings) {
+				out.writeLong(booking.getId());
+				out.writeLong(booking.getVersion());
+				out.writeLong(orNull(booking.getRoomId()));
+				out.writeLong(booking.getStartDate()==null ? NULL_VALUE : booking.getStartDate().toEpochDay());
+				out.writeLong(booking.getEndDate()==null ? NULL_VALUE : booking.getEndDate().toEpochDay());
+				out.writeBoolean(booking.getName()!=null);
+				if(booking.getName()!=null) out.writeUTF(booking.getName());
+			}
+			out.writeInt(SNAPSHOT_MAGIC);
+			out.flush();
+			file.getFD().sync();
+		}
+		Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE);
+		
+		//Everything older is covered by the new snapshot
+		for(Long journalGeneration : generations("journal-", ".log")) {
+			if(journalGeneration<snapshotGeneration) Files.deleteIfExists(file("journal-", journalGeneration, ".log"));
+		}
+		for(Long olderSnapshot : generations("snapshot-", ".bin")) {
+			if(olderSnapshot<snapshotGeneration) Files.deleteIfExists(file("snapshot-", olderSnapshot, ".bin"));
+		}
+	}
+	
+	void close() throws IOException {
+		if(channel!=null) {
+			region.force();
+			channel.close();
+			channel = null;
+		}
+	}
+	
+	private void open(long newGeneration) throws IOException {
+		generation = newGeneration;
+		channel = FileChannel.open(file("journal-", generation, ".log"),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		regionOffset = 0;
+		region = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+		//The region size is kept in the header, so the journal can be read back with another configuration
+		region.putInt(JOURNAL_MAGIC);
+		region.putInt(regionSize);
+	}
+	
+	private ByteBuffer startRecord(int length) throws IOException {
+		//Records never cross regions: length, payload and checksum must fit in what is left
+		if(4 + length + 4 > regionSize - HEADER_SIZE) {
+			throw new IOException("Journal record of " + length + " bytes does not fit in a region of " + regionSize + " bytes");
+		}
+		if(region.remaining() < 4 + length + 4) {
+			if(region.remaining() >= 4) region.putInt(NEXT_REGION);
+			regionOffset += regionSize;
+			region = channel.map(FileChannel.MapMode.READ_WRITE, regionOffset, regionSize);
+		}
+		recordStart = region.position();
+		region.putInt(0);
+		return region;
+	}
+	
+	private void endRecord() {
+		//The length is written last, so a record cut short by a crash reads as the end of the journal
+		int end = region.position();
+		int length = end - recordStart - 4;
+		ByteBuffer payload = region.duplicate();
+		payload.position(recordStart + 4).limit(end);
+		crc.reset();
+		crc.update(payload);
+		region.putInt((int) crc.getValue());
+		region.putInt(recordStart, length);
+		if(forceOnWrite) region.force();
+	}
+	
+	private long replay(Path journal, Map<Long, Booking> bookings) throws IOException {
+		long lastId = 0;
+		try(FileChannel readChannel = FileChannel.open(journal, StandardOpenOption.READ)) {
+			long size = readChannel.size();
+			if(size < HEADER_SIZE) {
+				return lastId;
+			}
+			MappedByteBuffer header = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if(header.getInt()!=JOURNAL_MAGIC) {
+				throw new IOException("Not a booking journal: " + journal);
+			}
+			int journalRegionSize = header.getInt();
+			for(long offset = 0; offset < size; offset += journalRegionSize) {
+				MappedByteBuffer readRegion = readChannel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(journalRegionSize, size - offset));
+				if(offset==0) readRegion.position(HEADER_SIZE);
+				while(readRegion.remaining() >= 4) {
+					int length = readRegion.getInt();
+					if(length==NEXT_REGION) {
+						break;
+					}
+					if(length<=0 || length + 4 > readRegion.remaining()) {
+						return lastId;
+					}
+					ByteBuffer payload = readRegion.slice();
+					payload.limit(length);
+					crc.reset();
+					crc.update(payload.duplicate());
+					readRegion.position(readRegion.position() + length);
+					if(readRegion.getInt()!=(int) crc.getValue()) {
+						return lastId;
+					}
+					lastId = Math.max(lastId, apply(payload, bookings));
+				}
+			}
+		}
+		return lastId;
+	}
+	
+	private long apply(ByteBuffer payload, Map<Long, Booking> bookings) {
+		byte type = payload.get();
+		long id = payload.getLong();
+		if(type==DELETE) {
+			bookings.remove(id);
+			return id;
+		}
+		long version = payload.getLong();
+		long roomId = payload.getLong();
+		long startDate = payload.getLong();
+		long endDate = payload.getLong();
+		int nameLength = payload.getInt();
+		String name = null;
+		if(nameLength>=0) {
+			byte[] nameBytes = new byte[nameLength];
+			payload.get(nameBytes);
+			name = new String(nameBytes, StandardCharsets.UTF_8);
+		}
+		bookings.put(id, booking(id, version, roomId, startDate, endDate, name));
+		return id;
+	}
+	
+	private long readSnapshot(Path snapshot, Map<Long, Booking> bookings) throws IOException {
+		try(InputStream file = Files.newInputStream(snapshot);
+				DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+			if(in.readInt()!=SNAPSHOT_MAGIC) {
+				throw new IOException("Not a booking snapshot: " + snapshot);
+			}
+			long lastId = in.readLong();
+			int count = in.readInt();
+			for(int i = 0; i < count; i++) {
+				long id = in.readLong();
+				long version = in.readLong();
+				long roomId = in.readLong();
+				long startDate = in.readLong();
+				long endDate = in.readLong();
+				String name = in.readBoolean() ? in.readUTF() : null;
+				bookings.put(id, booking(id, version, roomId, startDate, endDate, name));
+			}
+			if(in.readInt()!=SNAPSHOT_MAGIC) {
+				throw new IOException("Incomplete booking snapshot: " + snapshot);
+			}
+			return lastId;
+		}
+	}
+	
+	private static Booking booking(long id, long version, long roomId, long startDate, long endDate, String name) {
+		Booking booking = new Booking(name, roomId==NULL_VALUE ? null : roomId,
+				startDate==NULL_VALUE ? null : LocalDate.ofEpochDay(startDate),
+				endDate==NULL_VALUE ? null : LocalDate.ofEpochDay(endDate));
+		booking.setId(id);
+		booking.setVersion(version);
+		return booking;
+	}
+	
+	private static long orNull(Long value) {
+		return value==null ? NULL_VALUE : value;
+	}
+	
+	private Path file(String prefix, long fileGeneration, String suffix) {
+		return directory.resolve(prefix + fileGeneration + suffix);
+	}
+	
+	private List<Long> generations(String prefix, String suffix) throws IOException {
+		List<Long> generations = new ArrayList<>();
+		try(Stream<Path> files = Files.list(directory)) {
+			files.map(path -> path.getFileName().toString())
+					.filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+					.forEach(name -> generations.add(Long.valueOf(name.substring(prefix.length(), name.length() - suffix.length()))));
+		}
+		generations.sort(null);
+		return generations;
+	}
+	
+}
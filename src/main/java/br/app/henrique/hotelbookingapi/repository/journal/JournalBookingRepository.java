@@ -0,0 +1,272 @@
+package br.app.henrique.hotelbookingapi.repository.journal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Repository;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+
+//Keeps every booking in memory and makes changes durable in an append-only journal, instead of the database.
+//Writes are serialized, reads never lock. Bookings are copied in and out, so callers never share stored instances.
+@Repository
+@Profile("journal")
+public class JournalBookingRepository implements BookingStore {
+	
+	private static final Logger log = LoggerFactory.getLogger(JournalBookingRepository.class);
+	
+	private final ConcurrentNavigableMap<Long, Booking> bookings = new ConcurrentSkipListMap<>();
+	private final Object writeLock = new Object();
+	private final BookingJournal journal;
+	private final long snapshotIntervalSeconds;
+	private final ScheduledExecutorService snapshotExecutor;
+	private long lastId;
+	
+	public JournalBookingRepository(@Value("${booking.journal.directory:data/journal}") String directory,
+			@Value("${booking.journal.region-size:67108864}") int regionSize,
+			@Value("${booking.journal.force-on-write:false}") boolean forceOnWrite,
+			@Value("${booking.journal.snapshot-interval-seconds:60}") long snapshotIntervalSeconds) {
+		this.journal = new BookingJournal(Paths.get(directory), regionSize, forceOnWrite);
+		this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+		this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "booking-journal-snapshot");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	@PostConstruct
+	void recover() throws IOException {
+		synchronized(writeLock) {
+			lastId = journal.recover(bookings);
+		}
+		log.info("Recovered {} bookings from journal", bookings.size());
+		snapshotExecutor.scheduleWithFixedDelay(this::snapshot, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+	}
+	
+	@PreDestroy
+	void close() throws IOException {
+		snapshotExecutor.shutdown();
+		synchronized(writeLock) {
+			journal.close();
+		}
+	}
+	
+	void snapshot() {
+		//Only the journal switch and the copy of the map hold the lock, the snapshot is written while writes go on
+		try {
+			long generation;
+			List<Booking> state;
+			long snapshotLastId;
+			synchronized(writeLock) {
+				generation = journal.rotate();
+				state = new ArrayList<>(bookings.values());
+				snapshotLastId = lastId;
+			}
+			journal.writeSnapshot(generation, state, snapshotLastId);
+		} catch (IOException | RuntimeException e) {
+			log.error("Could not write booking snapshot", e);
+		}
+	}
+	
+	@Override
+	public List<Booking> getBookingsByDate(LocalDate startDate, LocalDate endDate) {
+		//A scan is cheap at the inventory sizes this store is meant for
+		return bookings.values().stream()
+				.filter(booking -> overlaps(booking, startDate, endDate))
+				.sorted((a, b) -> a.getStartDate().compareTo(b.getStartDate()))
+				.map(JournalBookingRepository::copy)
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public List<Booking> getBookingsByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore) {
+		return bookings.values().stream()
+				.filter(booking -> roomId.equals(booking.getRoomId()) && !booking.getId().equals(idToIgnore))
+				.filter(booking -> overlaps(booking, startDate, endDate))
+				.sorted((a, b) -> a.getStartDate().compareTo(b.getStartDate()))
+				.map(JournalBookingRepository::copy)
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public boolean existsBookingByRoomAndDateIgnoringId(Long roomId, LocalDate startDate, LocalDate endDate, Long idToIgnore) {
+		return bookings.values().stream()
+				.anyMatch(booking -> roomId.equals(booking.getRoomId()) && !booking.getId().equals(idToIgnore)
+						&& overlaps(booking, startDate, endDate));
+	}
+	
+	@Override
+	public List<Booking> findByEndDateGreaterThanEqual(LocalDate date) {
+		return bookings.values().stream()
+				.filter(booking -> !booking.getEndDate().isBefore(date))
+				.map(JournalBookingRepository::copy)
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public List<Booking> getBookingsAfterId(Long afterId, Pageable pageable) {
+		return bookings.tailMap(afterId, false).values().stream()
+				.skip(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.map(JournalBookingRepository::copy)
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public List<Booking> getBookingsEndedBefore(LocalDate date, Pageable pageable) {
+		return bookings.values().stream()
+				.filter(booking -> booking.getEndDate().isBefore(date))
+				.sorted((a, b) -> a.getEndDate().compareTo(b.getEndDate()))
+				.skip(pageable.getOffset())
+				.limit(pageable.getPageSize())
+				.map(JournalBookingRepository::copy)
+				.collect(Collectors.toList());
+	}
+	
+	@Override
+	public Stream<Booking> streamAllBookings() {
+		return bookings.values().stream().map(JournalBookingRepository::copy);
+	}
+	
+	@Override
+	public List<Booking> findAll() {
+		return bookings.values().stream().map(JournalBookingRepository::copy).collect(Collectors.toList());
+	}
+	
+	@Override
+	public Optional<Booking> findById(Long id) {
+		return Optional.ofNullable(bookings.get(id)).map(JournalBookingRepository::copy);
+	}
+	
+	@Override
+	public <S extends Booking> S save(S entity) {
+		synchronized(writeLock) {
+			Booking stored = prepare(entity);
+			append(stored);
+			bookings.put(stored.getId(), stored);
+			entity.setId(stored.getId());
+			entity.setVersion(stored.getVersion());
+		}
+		return entity;
+	}
+	
+	@Override
+	public <S extends Booking> List<S> saveAllAndFlush(Iterable<S> entities) {
+		//Versions are all checked before the first record is written
+		List<S> result = new ArrayList<>();
+		synchronized(writeLock) {
+			List<Booking> storedBookings = new ArrayList<>();
+			for(S entity : entities) {
+				storedBookings.add(prepare(entity));
+				result.add(entity);
+			}
+			for(int i = 0; i < storedBookings.size(); i++) {
+				Booking stored = storedBookings.get(i);
+				append(stored);
+				bookings.put(stored.getId(), stored);
+				result.get(i).setId(stored.getId());
+				result.get(i).setVersion(stored.getVersion());
+			}
+			journal.force();
+		}
+		return result;
+	}
+	
+	@Override
+	public void deleteById(Long id) {
+		synchronized(writeLock) {
+			if(!bookings.containsKey(id)) {
+				throw new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", Booking.class, id), 1);
+			}
+			remove(id);
+		}
+	}
+	
+	@Override
+	public void deleteAll(Iterable<? extends Booking> entities) {
+		//As with the database, a booking changed since it was read fails the whole delete, before the first record is written
+		List<Long> ids = new ArrayList<>();
+		synchronized(writeLock) {
+			for(Booking entity : entities) {
+				Booking current = entity.getId()==null ? null : bookings.get(entity.getId());
+				if(current==null) continue;
+				if(!current.getVersion().equals(entity.getVersion())) {
+					throw new ObjectOptimisticLockingFailureException(Booking.class, entity.getId());
+				}
+				ids.add(entity.getId());
+			}
+			for(Long id : ids) {
+				remove(id);
+			}
+		}
+	}
+	
+	private Booking prepare(Booking entity) {
+		//Same rules as the @Version column: every save of an existing booking must carry its current version
+		Booking stored = copy(entity);
+		Booking current = entity.getId()==null ? null : bookings.get(entity.getId());
+		if(current==null) {
+			stored.setId(++lastId);
+			stored.setVersion(0l);
+		} else {
+			if(!current.getVersion().equals(entity.getVersion())) {
+				throw new ObjectOptimisticLockingFailureException(Booking.class, entity.getId());
+			}
+			stored.setVersion(current.getVersion() + 1);
+		}
+		return stored;
+	}
+	
+	private void append(Booking stored) {
+		try {
+			journal.appendPut(stored);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Could not write booking to journal", e);
+		}
+	}
+	
+	private void remove(Long id) {
+		try {
+			journal.appendDelete(id);
+		} catch (IOException e) {
+			throw new DataAccessResourceFailureException("Could not write booking to journal", e);
+		}
+		bookings.remove(id);
+	}
+	
+	private static boolean overlaps(Booking booking, LocalDate startDate, LocalDate endDate) {
+		return !booking.getStartDate().isAfter(endDate) && !booking.getEndDate().isBefore(startDate);
+	}
+	
+	private static Booking copy(Booking booking) {
+		Booking copy = new Booking(booking.getName(), booking.getRoomId(), booking.getStartDate(), booking.getEndDate());
+		copy.setId(booking.getId());
+		copy.setVersion(booking.getVersion());
+		return copy;
+	}
+	
+}
@@ -0,0 +1,14 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+
+public interface BookingArchiveService {
+	
+	public int archivePastBookings();
+	
+	public List<ArchivedBooking> returnArchivedBookings(LocalDate startDate, LocalDate endDate, Long afterId, Integer limit);
+	
+}
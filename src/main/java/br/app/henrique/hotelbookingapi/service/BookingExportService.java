@@ -0,0 +1,13 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+public interface BookingExportService {
+	
+	public void checkExportRange(LocalDate startDate, LocalDate endDate);
+	
+	public long exportBookings(LocalDate startDate, LocalDate endDate, BookingFileFormat format, OutputStream output) throws IOException;
+	
+}
@@ -0,0 +1,27 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import org.springframework.http.MediaType;
+
+//Formats of the files bookings are imported from and exported to, with one booking per line
+public enum BookingFileFormat {
+	
+	CSV("text/csv", "csv"),
+	NDJSON(MediaType.APPLICATION_NDJSON_VALUE, "ndjson");
+	
+	private final String mediaType;
+	private final String extension;
+	
+	private BookingFileFormat(String mediaType, String extension) {
+		this.mediaType = mediaType;
+		this.extension = extension;
+	}
+	
+	public String mediaType() {
+		return mediaType;
+	}
+	
+	public String extension() {
+		return extension;
+	}
+	
+}
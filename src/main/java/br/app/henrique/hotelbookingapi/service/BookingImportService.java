@@ -0,0 +1,13 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import java.io.InputStream;
+
+import br.app.henrique.hotelbookingapi.dto.ImportReport;
+
+public interface BookingImportService {
+
+	public ImportReport importBookings(InputStream input, BookingFileFormat format, long offset);
+
+	public ImportReport returnImportProgress();
+
+}
@@ -1,7 +1,12 @@
 package br.app.henrique.hotelbookingapi.service;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import br.app.henrique.hotelbookingapi.availability.BookingHold;
+import br.app.henrique.hotelbookingapi.dto.BookingResult;
 import br.app.henrique.hotelbookingapi.model.Booking;
 
 public interface BookingService {
@@ -10,9 +15,27 @@ public interface BookingService {
 	
 	public List<Booking> returnAllBookings();
 	
+	public List<Booking> returnBookingsPage(Long afterId, Integer limit);
+	
+	public void streamAllBookings(Consumer<Booking> consumer);
+	
+	public Map<LocalDate, Boolean> returnAvailabilityCalendar(Long roomId);
+	
 	public Booking createBooking(Booking booking);
 	
+	public List<BookingResult> createBookings(List<Booking> bookings);
+	
+	public BookingHold holdBooking(Booking booking, Integer minutes);
+	
+	public Booking confirmHold(String id);
+	
+	public void releaseHold(String id);
+	
 	public void cancelBooking(String id);
 	
 	public Booking updateBooking(String id, Booking bookingUpdates);
+	
+	public Booking updateBooking(String id, Booking bookingUpdates, Long expectedVersion);
+	
+	public Map<String, Map<String, Number>> returnCacheStats();
 }
@@ -0,0 +1,21 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import br.app.henrique.hotelbookingapi.model.Hotel;
+import br.app.henrique.hotelbookingapi.model.Room;
+
+public interface HotelService {
+	
+	public Hotel createHotel(Hotel hotel);
+	
+	public List<Hotel> returnAllHotels();
+	
+	public Room createRoom(Long hotelId, Room room);
+	
+	public List<Room> returnRooms(Long hotelId);
+	
+	public List<Room> findFreeRooms(Long hotelId, LocalDate startDate, LocalDate endDate, Integer limit);
+	
+}
@@ -0,0 +1,14 @@
+package br.app.henrique.hotelbookingapi.service;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+
+public interface WaitlistService {
+	
+	public WaitlistEntry joinWaitlist(Booking booking);
+	
+	public WaitlistEntry returnWaitlistEntry(String id);
+	
+	public WaitlistEntry leaveWaitlist(String id);
+	
+}
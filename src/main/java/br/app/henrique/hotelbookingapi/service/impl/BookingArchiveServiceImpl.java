@@ -0,0 +1,152 @@
+package br.app.henrique.hotelbookingapi.service.impl;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.ArchivedBookingRepository;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingArchiveService;
+import io.micrometer.core.annotation.Timed;
+
+@Service
+public class BookingArchiveServiceImpl implements BookingArchiveService{
+
+	private static final Logger log = LoggerFactory.getLogger(BookingArchiveServiceImpl.class);
+
+	private static final Integer DEFAULT_PAGE_SIZE = 100;
+	private static final Integer MAX_PAGE_SIZE = 1000;
+
+	@Autowired
+	BookingStore bookingRepository;
+
+	@Autowired
+	ArchivedBookingRepository archivedBookingRepository;
+
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+
+	@Autowired
+	BookingQueryCache bookingQueryCache;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	Clock clock;
+
+	//The scheduled runs call the service through its proxy, as calls on this instance would not be timed
+	@Autowired
+	@Lazy
+	BookingArchiveService bookingArchiveService;
+
+	@Value("${booking.archive.enabled:true}")
+	boolean enabled;
+
+	@Value("${booking.archive.batch-size:500}")
+	int batchSize;
+
+	@Scheduled(initialDelayString = "${booking.archive.initial-delay:PT1M}", fixedDelayString = "${booking.archive.interval:PT1H}")
+	public void archivePastBookingsOnSchedule() {
+		if(!enabled) {
+			return;
+		}
+		try {
+			bookingArchiveService.archivePastBookings();
+		} catch(RuntimeException e) {
+			//The bookings of a failed batch are still in the booking table, and are archived on the next run
+			log.error("Could not archive past bookings", e);
+		}
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "archive"})
+	public int archivePastBookings() {
+		//Bookings that ended before today cannot conflict with any new reservation
+		LocalDate today = LocalDate.now(clock);
+		int archived = 0;
+		int batchArchived;
+		do {
+			//Each batch is its own transaction, so the booking table is never locked for the whole run
+			batchArchived = transactionTemplate.execute(status -> archiveBatch(today));
+			archived += batchArchived;
+		} while(batchArchived==batchSize);
+		availabilityIndex.pruneBefore(today);
+		if(archived>0) {
+			//Invalidated after the batches are committed, so no query caches the archived bookings again
+			bookingQueryCache.invalidateAll();
+			log.info("Archived {} bookings that ended before {}", archived, today);
+		}
+		return archived;
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "archive-query"})
+	public List<ArchivedBooking> returnArchivedBookings(LocalDate startDate, LocalDate endDate, Long afterId, Integer limit) {
+		if(startDate==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: startDate");
+		}
+		if(endDate==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: endDate");
+		}
+		if(startDate.isAfter(endDate)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
+		}
+		if(afterId==null) afterId = 0l;
+		if(limit==null) limit = DEFAULT_PAGE_SIZE;
+		if(limit<1 || limit>MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		return archivedBookingRepository.getArchivedBookingsByDateAfterId(startDate, endDate, afterId, PageRequest.of(0, limit));
+	}
+
+	private int archiveBatch(LocalDate endedBefore) {
+		List<Booking> bookings = bookingRepository.getBookingsEndedBefore(endedBefore, PageRequest.of(0, batchSize));
+		if(bookings.isEmpty()) {
+			return 0;
+		}
+		LocalDateTime archivedAt = LocalDateTime.now(clock);
+		//The journal store is outside the transaction, so a booking can still be stored after it was archived, e.g. if its delete was lost in a crash.
+		//It is then only deleted, so the move can be repeated
+		Map<Long, ArchivedBooking> archivedById = archivedBookingRepository.findAllById(bookings.stream()
+				.map(Booking::getId)
+				.collect(Collectors.toList())).stream()
+				.collect(Collectors.toMap(ArchivedBooking::getId, archivedBooking -> archivedBooking));
+		List<ArchivedBooking> toArchive = new ArrayList<>();
+		for(Booking booking : bookings) {
+			ArchivedBooking archivedBooking = archivedById.get(booking.getId());
+			if(archivedBooking==null) {
+				toArchive.add(new ArchivedBooking(booking, archivedAt));
+			} else if(!archivedBooking.isArchiveOf(booking)) {
+				//The journal store numbers its bookings apart from the archive, so a row archived from another store can have the same id.
+				//Failing the batch keeps the booking in its store, instead of deleting it as if it was archived
+				throw new DataIntegrityViolationException("Booking " + booking.getId() + " cannot be archived, the archive has another booking with its id");
+			}
+		}
+		//Flushed before the bookings are deleted, so a failed insert never loses them, even from a store outside the transaction
+		archivedBookingRepository.saveAllAndFlush(toArchive);
+		//Removed as entities, so a booking updated since it was read fails the version check and rolls the batch back
+		bookingRepository.deleteAll(bookings);
+		return bookings.size();
+	}
+
+}
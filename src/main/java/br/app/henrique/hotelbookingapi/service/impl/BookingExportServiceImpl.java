@@ -0,0 +1,221 @@
+package br.app.henrique.hotelbookingapi.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingExportService;
+import br.app.henrique.hotelbookingapi.service.BookingFileFormat;
+import io.micrometer.core.annotation.Timed;
+
+@Service
+public class BookingExportServiceImpl implements BookingExportService{
+
+	private static final Logger log = LoggerFactory.getLogger(BookingExportServiceImpl.class);
+
+	private static final Integer WRITE_BUFFER_SIZE = 65536;
+
+	@Autowired
+	BookingStore bookingRepository;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	Environment environment;
+
+	//Its own template, so only exports read rows in batches of the export fetch size
+	private final JdbcTemplate exportTemplate;
+
+	public BookingExportServiceImpl(DataSource dataSource, @Value("${booking.export.fetch-size:1000}") int fetchSize) {
+		exportTemplate = new JdbcTemplate(dataSource);
+		exportTemplate.setFetchSize(fetchSize);
+	}
+
+	public void checkExportRange(LocalDate startDate, LocalDate endDate) {
+		if(startDate!=null && endDate!=null && startDate.isAfter(endDate)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
+		}
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "export"})
+	public long exportBookings(LocalDate startDate, LocalDate endDate, BookingFileFormat format, OutputStream output) throws IOException {
+		checkExportRange(startDate, endDate);
+		LineWriter writer = format==BookingFileFormat.CSV ? new CsvLineWriter(output) : new NdjsonLineWriter(objectMapper.getFactory(), output);
+		if(environment.acceptsProfiles(Profiles.of("journal"))) {
+			//The journal store keeps its bookings in memory, not in the booking table
+			exportFromRepository(startDate, endDate, writer);
+		} else {
+			exportFromTable(startDate, endDate, writer);
+		}
+		writer.finish();
+		log.info("Exported {} bookings from {} to {}", writer.lines, startDate, endDate);
+		return writer.lines;
+	}
+
+	private void exportFromTable(LocalDate startDate, LocalDate endDate, LineWriter writer) throws IOException {
+		//Each row is written to the response as it is read, so the export never holds more than a fetch of rows
+		StringBuilder sql = new StringBuilder("select id, name, room_id, start_date, end_date, version from booking where 1 = 1");
+		List<Object> args = new ArrayList<>(2);
+		if(endDate!=null) {
+			sql.append(" and start_date <= ?");
+			args.add(Date.valueOf(endDate));
+		}
+		if(startDate!=null) {
+			sql.append(" and end_date >= ?");
+			args.add(Date.valueOf(startDate));
+		}
+		sql.append(" order by id");
+		try {
+			exportTemplate.query(sql.toString(), rs -> {
+				long version = rs.getLong(6);
+				Long writtenVersion = rs.wasNull() ? null : version;
+				try {
+					writer.write(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getObject(4, LocalDate.class), rs.getObject(5, LocalDate.class), writtenVersion);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}, args.toArray());
+		} catch (UncheckedIOException e) {
+			//The client went away, and the query was closed with the result set
+			throw e.getCause();
+		}
+	}
+
+	private void exportFromRepository(LocalDate startDate, LocalDate endDate, LineWriter writer) throws IOException {
+		try(Stream<Booking> bookings = bookingRepository.streamAllBookings()) {
+			Iterator<Booking> iterator = bookings.iterator();
+			while(iterator.hasNext()) {
+				Booking booking = iterator.next();
+				if((endDate==null || !booking.getStartDate().isAfter(endDate)) && (startDate==null || !booking.getEndDate().isBefore(startDate))) {
+					writer.write(booking.getId(), booking.getName(), booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), booking.getVersion());
+				}
+			}
+		}
+	}
+
+	private abstract static class LineWriter {
+
+		long lines;
+
+		void write(long id, String name, long roomId, LocalDate startDate, LocalDate endDate, Long version) throws IOException {
+			writeLine(id, name, roomId, startDate, endDate, version);
+			lines++;
+		}
+
+		abstract void writeLine(long id, String name, long roomId, LocalDate startDate, LocalDate endDate, Long version) throws IOException;
+
+		abstract void finish() throws IOException;
+	}
+
+	//Same columns as the import reads, which ignores id and version
+	private static final class CsvLineWriter extends LineWriter {
+
+		private final Writer writer;
+
+		private CsvLineWriter(OutputStream output) throws IOException {
+			writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+			writer.write("id,name,roomId,startDate,endDate,version\n");
+		}
+
+		@Override
+		void writeLine(long id, String name, long roomId, LocalDate startDate, LocalDate endDate, Long version) throws IOException {
+			writer.write(Long.toString(id));
+			writer.write(',');
+			writeField(name);
+			writer.write(',');
+			writer.write(Long.toString(roomId));
+			writer.write(',');
+			writer.write(startDate.toString());
+			writer.write(',');
+			writer.write(endDate.toString());
+			writer.write(',');
+			if(version!=null) writer.write(Long.toString(version));
+			writer.write('\n');
+		}
+
+		private void writeField(String value) throws IOException {
+			if(value==null) {
+				return;
+			}
+			//Quoted only when needed, with "" for a quote inside the field
+			if(value.indexOf(',')<0 && value.indexOf('"')<0 && value.indexOf('\n')<0 && value.indexOf('\r')<0) {
+				writer.write(value);
+				return;
+			}
+			writer.write('"');
+			writer.write(value.replace("\"", "\"\""));
+			writer.write('"');
+		}
+
+		@Override
+		void finish() throws IOException {
+			writer.flush();
+		}
+	}
+
+	//Written field by field with the generator, so no booking or response object is created per row
+	private static final class NdjsonLineWriter extends LineWriter {
+
+		private final JsonGenerator generator;
+
+		private NdjsonLineWriter(JsonFactory jsonFactory, OutputStream output) throws IOException {
+			generator = jsonFactory.createGenerator(output);
+			generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+		}
+
+		@Override
+		void writeLine(long id, String name, long roomId, LocalDate startDate, LocalDate endDate, Long version) throws IOException {
+			generator.writeStartObject();
+			generator.writeNumberField("id", id);
+			generator.writeStringField("name", name);
+			generator.writeNumberField("roomId", roomId);
+			generator.writeStringField("startDate", startDate.toString());
+			generator.writeStringField("endDate", endDate.toString());
+			if(version==null) {
+				generator.writeNullField("version");
+			} else {
+				generator.writeNumberField("version", version);
+			}
+			generator.writeEndObject();
+		}
+
+		@Override
+		void finish() throws IOException {
+			//Lines are separated by the pretty printer, so only the last one still needs its line break
+			if(lines>0) generator.writeRaw('\n');
+			generator.flush();
+		}
+	}
+
+}
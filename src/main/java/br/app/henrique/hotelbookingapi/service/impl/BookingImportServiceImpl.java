@@ -0,0 +1,435 @@
+package br.app.henrique.hotelbookingapi.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.dto.ImportReport;
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.repository.ArchivedBookingRepository;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingFileFormat;
+import br.app.henrique.hotelbookingapi.service.BookingImportService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+public class BookingImportServiceImpl implements BookingImportService{
+
+	private static final Logger log = LoggerFactory.getLogger(BookingImportServiceImpl.class);
+
+	public static final String IMPORTED_ROWS = "booking.import.rows";
+
+	private static final Integer READ_BUFFER_SIZE = 65536;
+	private static final Long NO_BOOKING_ID = 0l;
+
+	//Ids are taken from the booking sequence, so imported bookings never share an id with a booking of the database archived later.
+	//The journal store numbers its bookings itself, so imports are refused with the journal profile
+	private static final String INSERT_ARCHIVED_BOOKING = "insert into booking_archive (id, name, room_id, start_date, end_date, version, archived_at) "
+			+ "values (next value for booking_seq, ?, ?, ?, ?, 0, ?)";
+
+	@Autowired
+	BookingStore bookingRepository;
+
+	@Autowired
+	ArchivedBookingRepository archivedBookingRepository;
+
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired
+	Clock clock;
+
+	@Autowired
+	Environment environment;
+
+	@Value("${booking.import.enabled:false}")
+	boolean enabled;
+
+	@Value("${booking.import.chunk-size:10000}")
+	int chunkSize;
+
+	private final Counter importedRows;
+
+	//Only one import runs at a time, and its latest report is kept for the progress endpoint
+	private final AtomicBoolean running = new AtomicBoolean();
+	private volatile ImportReport progress;
+
+	public BookingImportServiceImpl(MeterRegistry meterRegistry) {
+		importedRows = Counter.builder(IMPORTED_ROWS)
+				.description("Past bookings written by the import")
+				.register(meterRegistry);
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "import"})
+	public ImportReport importBookings(InputStream input, BookingFileFormat format, long offset) {
+		if(!enabled) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking import is disabled");
+		}
+		if(environment.acceptsProfiles(Profiles.of("journal"))) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Booking import is not available with the journal store");
+		}
+		if(offset<0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "offset cannot be negative");
+		}
+		if(!running.compareAndSet(false, true)) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "An import is already running");
+		}
+		try {
+			return runImport(input, format, offset);
+		} finally {
+			running.set(false);
+		}
+	}
+
+	public ImportReport returnImportProgress() {
+		ImportReport report = progress;
+		if(report==null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No import has run");
+		}
+		return report;
+	}
+
+	private ImportReport runImport(InputStream input, BookingFileFormat format, long offset) {
+		ImportRun run = new ImportRun(offset, Timestamp.valueOf(LocalDateTime.now(clock)));
+		progress = ImportReport.running(run.nextOffset, run.imported, run.elapsedMillis());
+		String error;
+		try {
+			error = readRecords(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), READ_BUFFER_SIZE), format, run);
+			//Records validated before an invalid one are still written, so a restart from nextOffset begins at the invalid record
+			String writeError = write(run);
+			if(writeError!=null) {
+				error = writeError;
+			}
+		} catch(IOException e) {
+			error = "Could not read the file: " + e.getMessage();
+		} catch(DataAccessException e) {
+			log.error("Could not write imported bookings", e);
+			error = "Could not write bookings: " + e.getMostSpecificCause().getMessage();
+		}
+		ImportReport report = error==null ? ImportReport.completed(run.nextOffset, run.imported, run.elapsedMillis())
+				: ImportReport.failed(run.nextOffset, run.imported, run.elapsedMillis(), error);
+		progress = report;
+		log.info("Import of {} bookings finished: {}", run.imported, report);
+		return report;
+	}
+
+	private String readRecords(BufferedReader reader, BookingFileFormat format, ImportRun run) throws IOException {
+		LocalDate today = LocalDate.now(clock);
+		RecordParser parser;
+		if(format==BookingFileFormat.CSV) {
+			String header = reader.readLine();
+			if(header==null) {
+				return null;
+			}
+			parser = new CsvRecordParser(header);
+		} else {
+			ObjectReader bookingReader = objectMapper.readerFor(Booking.class);
+			parser = bookingReader::readValue;
+		}
+		//Records before the offset were written by an earlier run, so they are only read, not parsed,
+		//except for the last one, which the next record is checked against
+		long record = 0;
+		String line;
+		String lastSkipped = null;
+		while(record<run.nextOffset && (line = reader.readLine())!=null) {
+			if(!line.isBlank()) {
+				lastSkipped = line;
+				record++;
+			}
+		}
+		Booking previous = lastSkipped==null ? null : parseQuietly(parser, lastSkipped);
+		while((line = reader.readLine())!=null) {
+			if(line.isBlank()) {
+				continue;
+			}
+			Booking booking;
+			try {
+				booking = parser.parse(line);
+			} catch(IOException | RuntimeException e) {
+				return "Record " + record + ": could not be parsed: " + e.getMessage();
+			}
+			String error = validate(booking, previous, today);
+			if(error!=null) {
+				return "Record " + record + ": " + error;
+			}
+			run.chunk.add(booking);
+			previous = booking;
+			record++;
+			if(run.chunk.size()>=chunkSize) {
+				String writeError = write(run);
+				if(writeError!=null) {
+					return writeError;
+				}
+				progress = ImportReport.running(run.nextOffset, run.imported, run.elapsedMillis());
+				log.info("Imported {} bookings, next offset {}", run.imported, run.nextOffset);
+			}
+		}
+		return null;
+	}
+
+	private String validate(Booking booking, Booking previous, LocalDate today) {
+		if(booking==null) {
+			return "Missing value: booking";
+		}
+		booking.setId(null);
+		if(booking.getName()==null || booking.getName().isBlank()) {
+			return "Missing value: name";
+		}
+		if(booking.getStartDate()==null) {
+			return "Missing value: startDate";
+		}
+		if(booking.getEndDate()==null) {
+			return "Missing value: endDate";
+		}
+		if(booking.getStartDate().isAfter(booking.getEndDate())) {
+			return "startDate cannot be higher than endDate";
+		}
+		//Bookings that did not end yet hold days that can still be booked, so they go through /booking/batch instead
+		if(!booking.getEndDate().isBefore(today)) {
+			return "only bookings that ended before today can be imported";
+		}
+		if(booking.getRoomId()==null) booking.setRoomId(Room.DEFAULT_ROOM_ID);
+		if(!availabilityIndex.hasRoom(booking.getRoomId())) {
+			return "Room not found: " + booking.getRoomId();
+		}
+		//Sorted records only overlap the record right before them, so the whole file is checked in a single pass
+		if(previous!=null) {
+			int roomOrder = booking.getRoomId().compareTo(previous.getRoomId());
+			if(roomOrder<0 || (roomOrder==0 && booking.getStartDate().isBefore(previous.getStartDate()))) {
+				return "bookings must be sorted by roomId and startDate";
+			}
+			if(roomOrder==0 && !booking.getStartDate().isAfter(previous.getEndDate())) {
+				return "dates conflict with the previous record";
+			}
+		}
+		return null;
+	}
+
+	private String write(ImportRun run) {
+		List<Booking> chunk = run.chunk;
+		if(chunk.isEmpty()) {
+			return null;
+		}
+		int conflict = findStoredConflict(chunk);
+		int writable = conflict<0 ? chunk.size() : conflict;
+		if(writable>0) {
+			//Each chunk is its own transaction, so a failed import keeps every chunk written before it.
+			//Copied, as the chunk is cleared for the next records once written
+			List<Booking> bookings = new ArrayList<>(chunk.subList(0, writable));
+			transactionTemplate.executeWithoutResult(status -> insert(bookings, run.importedAt));
+			importedRows.increment(writable);
+		}
+		String error = conflict<0 ? null
+				: "Record " + (run.nextOffset + conflict) + ": dates conflict with a stored booking of room " + chunk.get(conflict).getRoomId();
+		run.nextOffset += writable;
+		run.imported += writable;
+		chunk.clear();
+		return error;
+	}
+
+	private int findStoredConflict(List<Booking> chunk) {
+		//The chunk is sorted by room, so the stored bookings are read once for each room in it
+		int roomStart = 0;
+		for(int i = 1; i <= chunk.size(); i++) {
+			if(i<chunk.size() && chunk.get(i).getRoomId().equals(chunk.get(roomStart).getRoomId())) {
+				continue;
+			}
+			List<Booking> records = chunk.subList(roomStart, i);
+			int conflict = findStoredConflict(records, findStoredBookings(records));
+			if(conflict>=0) {
+				return roomStart + conflict;
+			}
+			roomStart = i;
+		}
+		return -1;
+	}
+
+	private List<Booking> findStoredBookings(List<Booking> records) {
+		//Records of a room do not overlap, so the last one is also the one ending last
+		Long roomId = records.get(0).getRoomId();
+		LocalDate startDate = records.get(0).getStartDate();
+		LocalDate endDate = records.get(records.size() - 1).getEndDate();
+		List<Booking> stored = new ArrayList<>(bookingRepository.getBookingsByRoomAndDateIgnoringId(roomId, startDate, endDate, NO_BOOKING_ID));
+		for(ArchivedBooking archivedBooking : archivedBookingRepository.getArchivedBookingsByRoomAndDate(roomId, startDate, endDate)) {
+			stored.add(new Booking(archivedBooking.getName(), archivedBooking.getRoomId(), archivedBooking.getStartDate(), archivedBooking.getEndDate()));
+		}
+		stored.sort(Comparator.comparing(Booking::getStartDate));
+		return stored;
+	}
+
+	private static int findStoredConflict(List<Booking> records, List<Booking> stored) {
+		//Both are sorted by startDate, so one pass over each finds the first record overlapping a stored booking
+		int next = 0;
+		for(int i = 0; i < records.size(); i++) {
+			Booking record = records.get(i);
+			while(next<stored.size() && stored.get(next).getEndDate().isBefore(record.getStartDate())) {
+				next++;
+			}
+			if(next<stored.size() && !stored.get(next).getStartDate().isAfter(record.getEndDate())) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void insert(List<Booking> bookings, Timestamp importedAt) {
+		jdbcTemplate.batchUpdate(INSERT_ARCHIVED_BOOKING, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Booking booking = bookings.get(i);
+				ps.setString(1, booking.getName());
+				ps.setLong(2, booking.getRoomId());
+				ps.setDate(3, Date.valueOf(booking.getStartDate()));
+				ps.setDate(4, Date.valueOf(booking.getEndDate()));
+				ps.setTimestamp(5, importedAt);
+			}
+
+			@Override
+			public int getBatchSize() {
+				return bookings.size();
+			}
+		});
+	}
+
+	private static Booking parseQuietly(RecordParser parser, String line) {
+		try {
+			Booking booking = parser.parse(line);
+			if(booking.getRoomId()==null) booking.setRoomId(Room.DEFAULT_ROOM_ID);
+			return booking;
+		} catch(IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	//Fields may be quoted, with "" for a quote inside a quoted field. Records cannot span lines
+	static List<String> splitCsvLine(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for(int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if(quoted) {
+				if(c=='"' && i + 1 < line.length() && line.charAt(i + 1)=='"') {
+					field.append('"');
+					i++;
+				} else if(c=='"') {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if(c=='"') {
+				quoted = true;
+			} else if(c==',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private interface RecordParser {
+		Booking parse(String line) throws IOException;
+	}
+
+	//Columns are found by their name in the header, so they can be in any order
+	private static final class CsvRecordParser implements RecordParser {
+
+		private final int name;
+		private final int roomId;
+		private final int startDate;
+		private final int endDate;
+
+		private CsvRecordParser(String header) {
+			List<String> columns = splitCsvLine(header.trim());
+			name = columns.indexOf("name");
+			roomId = columns.indexOf("roomId");
+			startDate = columns.indexOf("startDate");
+			endDate = columns.indexOf("endDate");
+		}
+
+		@Override
+		public Booking parse(String line) {
+			List<String> fields = splitCsvLine(line);
+			String room = field(fields, roomId);
+			String start = field(fields, startDate);
+			String end = field(fields, endDate);
+			return new Booking(field(fields, name), room==null ? null : Long.valueOf(room),
+					start==null ? null : LocalDate.parse(start), end==null ? null : LocalDate.parse(end));
+		}
+
+		private static String field(List<String> fields, int column) {
+			if(column<0 || column>=fields.size()) {
+				return null;
+			}
+			String value = fields.get(column).trim();
+			return value.isEmpty() ? null : value;
+		}
+	}
+
+	private static final class ImportRun {
+
+		private final long startedAt = System.nanoTime();
+		private final Timestamp importedAt;
+		private final List<Booking> chunk = new ArrayList<>();
+		private long nextOffset;
+		private long imported;
+
+		private ImportRun(long offset, Timestamp importedAt) {
+			this.nextOffset = offset;
+			this.importedAt = importedAt;
+		}
+
+		private long elapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+		}
+	}
+
+}
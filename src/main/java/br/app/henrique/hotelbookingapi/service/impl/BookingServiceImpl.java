@@ -1,120 +1,514 @@
 package br.app.henrique.hotelbookingapi.service.impl;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import br.app.henrique.hotelbookingapi.availability.AvailabilityChange;
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.availability.BookingHold;
+import br.app.henrique.hotelbookingapi.availability.BookingHolds;
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+import br.app.henrique.hotelbookingapi.dto.BookingResult;
+import br.app.henrique.hotelbookingapi.metrics.BookingMetrics;
+import br.app.henrique.hotelbookingapi.metrics.RejectionReason;
 import br.app.henrique.hotelbookingapi.model.Booking;
-import br.app.henrique.hotelbookingapi.repository.BookingRepository;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.repository.RoomRepository;
 import br.app.henrique.hotelbookingapi.service.BookingService;
+import br.app.henrique.hotelbookingapi.validation.BookingRejectedException;
+import br.app.henrique.hotelbookingapi.validation.ValidationResult;
+import br.app.henrique.hotelbookingapi.validation.Violation;
+import io.micrometer.core.annotation.Timed;
 
 @Service
 public class BookingServiceImpl implements BookingService{
 	
 	private static final Integer MAX_DAYS_OF_STAY = 3;
 	private static final Integer MAX_DAYS_TO_RESERVE_IN_ADVANCE = 30;
+	private static final Integer DEFAULT_PAGE_SIZE = 100;
+	private static final Integer MAX_PAGE_SIZE = 1000;
+	private static final Integer MAX_BATCH_SIZE = 500;
+	private static final Integer MAX_UPDATE_ATTEMPTS = 3;
+	private static final Integer UPDATE_LOCK_STRIPES = 64;
+	private static final Integer MAX_CONFLICTS_IN_MESSAGE = 10;
+	private static final Integer MAX_HOLD_MINUTES = 30;
 			
 	@Autowired
-	BookingRepository bookingRepository;
+	BookingStore bookingRepository;
+	
+	@Autowired
+	RoomRepository roomRepository;
+	
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+	
+	@Autowired
+	BookingQueryCache bookingQueryCache;
+	
+	@Autowired
+	BookingHolds bookingHolds;
 	
+	@Autowired
+	BookingMetrics bookingMetrics;
+	
+	@Autowired
+	ApplicationEventPublisher applicationEventPublisher;
+	
+	@Autowired
+	Clock clock;
+	
+	@PersistenceContext
+	EntityManager entityManager;
+	
+	private final Object[] updateLocks = newUpdateLocks();
+	
+	private static Object[] newUpdateLocks() {
+		Object[] locks = new Object[UPDATE_LOCK_STRIPES];
+		for(int i = 0; i < locks.length; i++) {
+			locks[i] = new Object();
+		}
+		return locks;
+	}
+	
+	@PostConstruct
+	void loadAvailabilityIndex() {
+		//Only bookings that have not ended yet can conflict with new reservations
+		availabilityIndex.load(roomRepository.findAll(), bookingRepository.findByEndDateGreaterThanEqual(LocalDate.now(clock)));
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "check"})
 	public List<Booking> checkBookingsByDate(Booking booking) {				
-		validateDatesNotNull(booking);
-		validateDateOrder(booking);
+		rejectIfInvalid(validateDates(booking, new ValidationResult()));
 
-		return bookingRepository.getBookingsByDate(booking.getStartDate(), booking.getEndDate());
+		return bookingQueryCache.getBookingsByDate(booking.getStartDate(), booking.getEndDate(),
+				() -> bookingRepository.getBookingsByDate(booking.getStartDate(), booking.getEndDate()));
 	}
 	
+	@Timed(value = "booking.service", extraTags = {"operation", "all"})
 	public List<Booking> returnAllBookings() {
 		return bookingRepository.findAll();
 	}
 	
+	@Timed(value = "booking.service", extraTags = {"operation", "page"})
+	public List<Booking> returnBookingsPage(Long afterId, Integer limit) {
+		//Keyset pagination: the client passes the id of the last booking it received
+		if(afterId==null) afterId = 0l;
+		if(limit==null) limit = DEFAULT_PAGE_SIZE;
+		if(limit<1 || limit>MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+		}
+		return bookingRepository.getBookingsAfterId(afterId, PageRequest.of(0, limit));
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "stream"})
+	@Transactional(readOnly = true)
+	public void streamAllBookings(Consumer<Booking> consumer) {
+		try(Stream<Booking> bookings = bookingRepository.streamAllBookings()) {
+			bookings.forEach(booking -> {
+				consumer.accept(booking);
+				//Detach each row once written, so the persistence context does not grow with the table
+				entityManager.detach(booking);
+			});
+		}
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "availability"})
+	public Map<LocalDate, Boolean> returnAvailabilityCalendar(Long roomId) {
+		if(roomId==null) roomId = Room.DEFAULT_ROOM_ID;
+		if(!availabilityIndex.hasRoom(roomId)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Room not found: " + roomId);
+		}
+		//Every day a stay can cover: from tomorrow to the last day of a stay starting at the end of the window
+		LocalDate today = LocalDate.now(clock);
+		return availabilityIndex.calendar(roomId, today.plusDays(1),
+				today.plusDays(MAX_DAYS_TO_RESERVE_IN_ADVANCE + MAX_DAYS_OF_STAY - 1));
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "create"})
 	public Booking createBooking(Booking booking) {
-		validateNameNotNull(booking);
-		validateDatesNotNull(booking);
-		validateDateOrder(booking);
-		validateHotelRules(booking);
-		checkIfDatesAreAvailable(booking);
+		useDefaultRoom(booking);
+		rejectIfInvalid(validateBooking(booking, LocalDate.now(clock)));
+		
+		//The booking has no id yet, so its days are claimed under a temporary one
+		Long claimId = availabilityIndex.newClaimId();
+		checkIfDatesAreAvailable(booking, claimId);
+		
+		Booking savedBooking = saveClaimedBooking(booking, claimId);
+		applicationEventPublisher.publishEvent(AvailabilityChange.occupied(savedBooking.getRoomId(), savedBooking.getStartDate(), savedBooking.getEndDate()));
+		return savedBooking;
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "hold"})
+	public BookingHold holdBooking(Booking booking, Integer minutes) {
+		if(minutes==null || minutes<1 || minutes>MAX_HOLD_MINUTES) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Holds must last from 1 to " + MAX_HOLD_MINUTES + " minutes");
+		}
+		useDefaultRoom(booking);
+		rejectIfInvalid(validateBooking(booking, LocalDate.now(clock)));
+		
+		//The days stay claimed under the hold until it is booked, released or expires
+		Long claimId = availabilityIndex.newClaimId();
+		checkIfDatesAreAvailable(booking, claimId);
+		BookingHold hold = new BookingHold(claimId, booking, Instant.now(clock), Duration.ofMinutes(minutes));
+		bookingHolds.add(hold);
+		applicationEventPublisher.publishEvent(AvailabilityChange.occupied(hold.getRoomId(), hold.getStartDate(), hold.getEndDate()));
+		return hold;
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "confirm-hold"})
+	public Booking confirmHold(String id) {
+		BookingHold hold = bookingHolds.take(id);
+		if(hold==null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hold not found or expired: " + id);
+		}
+		//The days were checked and claimed when the hold was placed, so the booking takes over the claim without checking them again
+		try {
+			return saveClaimedBooking(hold.toBooking(), hold.getClaimId());
+		} catch(RuntimeException e) {
+			//The claim was released with the failed save
+			applicationEventPublisher.publishEvent(AvailabilityChange.freed(hold.getRoomId(), hold.getStartDate(), hold.getEndDate()));
+			throw e;
+		}
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "release-hold"})
+	public void releaseHold(String id) {
+		BookingHold hold = bookingHolds.take(id);
+		if(hold==null) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hold not found or expired: " + id);
+		}
+		bookingHolds.release(hold);
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "batch"})
+	@Transactional
+	public List<BookingResult> createBookings(List<Booking> bookings) {
+		if(bookings==null || bookings.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: bookings");
+		}
+		if(bookings.size()>MAX_BATCH_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batches cannot have more than " + MAX_BATCH_SIZE + " bookings");
+		}
+		
+		//Entries are validated and claimed in request order,
+		//so an entry conflicting with an earlier one in the same batch is rejected as well
+		LocalDate today = LocalDate.now(clock);
+		BookingResult[] results = new BookingResult[bookings.size()];
+		List<Integer> acceptedIndexes = new ArrayList<>();
+		List<Booking> acceptedBookings = new ArrayList<>();
+		List<Long> claimIds = new ArrayList<>();
+		for(int i = 0; i < bookings.size(); i++) {
+			Booking booking = bookings.get(i);
+			if(booking==null) {
+				results[i] = BookingResult.rejected(i, null, "Missing value: booking");
+				continue;
+			}
+			try {
+				useDefaultRoom(booking);
+				rejectIfInvalid(validateBooking(booking, today));
+				Long claimId = availabilityIndex.newClaimId();
+				claimDays(booking, claimId);
+				acceptedIndexes.add(i);
+				acceptedBookings.add(booking);
+				claimIds.add(claimId);
+			} catch(ResponseStatusException e) {
+				results[i] = BookingResult.rejected(i, booking, e.getReason());
+			}
+		}
+		
+		rejectStoredConflicts(acceptedIndexes, acceptedBookings, claimIds, results);
 		
-		return bookingRepository.save(booking);
+		//All accepted entries are inserted together, in JDBC batches
+		List<Booking> savedBookings;
+		try {
+			savedBookings = bookingRepository.saveAllAndFlush(acceptedBookings);
+		} catch(RuntimeException e) {
+			for(int j = 0; j < acceptedBookings.size(); j++) {
+				Booking booking = acceptedBookings.get(j);
+				availabilityIndex.release(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), claimIds.get(j));
+			}
+			throw e;
+		}
+		confirmAfterCommit(claimIds, savedBookings);
+		for(int j = 0; j < savedBookings.size(); j++) {
+			bookingQueryCache.invalidate(savedBookings.get(j).getStartDate(), savedBookings.get(j).getEndDate());
+			//Sent to subscribers once the batch is committed
+			applicationEventPublisher.publishEvent(AvailabilityChange.occupied(savedBookings.get(j).getRoomId(), savedBookings.get(j).getStartDate(), savedBookings.get(j).getEndDate()));
+			results[acceptedIndexes.get(j)] = BookingResult.accepted(acceptedIndexes.get(j), savedBookings.get(j));
+		}
+		return Arrays.asList(results);
 	}
 
+	@Timed(value = "booking.service", extraTags = {"operation", "cancel"})
 	public void cancelBooking(String id) {
+		Booking booking = bookingRepository.findById(Long.valueOf(id)).orElse(null);
 		bookingRepository.deleteById(Long.valueOf(id));
+		availabilityIndex.remove(Long.valueOf(id));
+		if(booking!=null) {
+			bookingQueryCache.invalidate(booking.getStartDate(), booking.getEndDate());
+			applicationEventPublisher.publishEvent(AvailabilityChange.freed(booking.getRoomId(), booking.getStartDate(), booking.getEndDate()));
+		} else {
+			bookingQueryCache.invalidateAll();
+		}
 	}
 	
+	public Map<String, Map<String, Number>> returnCacheStats() {
+		return bookingQueryCache.stats();
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "update"})
 	public Booking updateBooking(String id, Booking bookingUpdates) {
-		//This method allows partial or complete update of name and dates
-		
-		Booking toBeUpdated = bookingRepository.getReferenceById(Long.valueOf(id));		
-		if(bookingUpdates.getName()!=null) toBeUpdated.setName(bookingUpdates.getName());
-		if(bookingUpdates.getStartDate()!=null) toBeUpdated.setStartDate(bookingUpdates.getStartDate());
-		if(bookingUpdates.getEndDate()!=null) toBeUpdated.setEndDate(bookingUpdates.getEndDate());
+		return updateBooking(id, bookingUpdates, null);
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "update"})
+	public Booking updateBooking(String id, Booking bookingUpdates, Long expectedVersion) {
+		//A concurrent update from another instance makes the versioned save fail,
+		//and the update is then applied again on a fresh read of the booking
+		LocalDate today = LocalDate.now(clock);
+		for(int attempt = 1; ; attempt++) {
+			try {
+				return applyUpdate(Long.valueOf(id), bookingUpdates, expectedVersion, today);
+			} catch(ObjectOptimisticLockingFailureException e) {
+				if(attempt>=MAX_UPDATE_ATTEMPTS) {
+					rejectIfInvalid(new ValidationResult().reject(RejectionReason.CONCURRENT_UPDATE, HttpStatus.CONFLICT, "Booking was updated concurrently, please try again"));
+				}
+				bookingMetrics.updateRetried();
+			}
+		}
+	}
+	
+	private Booking applyUpdate(Long id, Booking bookingUpdates, Long expectedVersion, LocalDate today) {
+		//This method allows partial or complete update of name, room and dates
 		
-		//validate booking after requested updates
-		validateNameNotNull(toBeUpdated);
-		validateDatesNotNull(toBeUpdated);
-		validateDateOrder(toBeUpdated);
-		validateHotelRules(toBeUpdated);
-		checkIfDatesAreAvailableForUpdate(toBeUpdated);
-
-		return bookingRepository.save(toBeUpdated);
+		//Updates of the same booking claim days under the same id, so they must not interleave in this instance
+		synchronized(updateLocks[Math.floorMod(id.hashCode(), updateLocks.length)]) {
+			Booking toBeUpdated = bookingRepository.findById(id).orElseThrow(
+					() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Booking not found: " + id));
+			if(expectedVersion!=null && !expectedVersion.equals(toBeUpdated.getVersion())) {
+				rejectIfInvalid(new ValidationResult().reject(RejectionReason.VERSION_MISMATCH, HttpStatus.PRECONDITION_FAILED,
+						"Booking was modified: expected version " + expectedVersion + " but current version is " + toBeUpdated.getVersion()));
+			}
+			Long previousRoomId = toBeUpdated.getRoomId();
+			LocalDate previousStartDate = toBeUpdated.getStartDate();
+			LocalDate previousEndDate = toBeUpdated.getEndDate();
+			if(bookingUpdates.getName()!=null) toBeUpdated.setName(bookingUpdates.getName());
+			if(bookingUpdates.getRoomId()!=null) toBeUpdated.setRoomId(bookingUpdates.getRoomId());
+			if(bookingUpdates.getStartDate()!=null) toBeUpdated.setStartDate(bookingUpdates.getStartDate());
+			if(bookingUpdates.getEndDate()!=null) toBeUpdated.setEndDate(bookingUpdates.getEndDate());
+			
+			//validate booking after requested updates
+			rejectIfInvalid(validateBooking(toBeUpdated, today));
+			checkIfDatesAreAvailable(toBeUpdated, toBeUpdated.getId());
+	
+			Booking savedBooking = saveClaimedBooking(toBeUpdated, toBeUpdated.getId());
+			bookingQueryCache.invalidate(previousStartDate, previousEndDate);
+			if(!savedBooking.getRoomId().equals(previousRoomId) || !savedBooking.getStartDate().equals(previousStartDate)
+					|| !savedBooking.getEndDate().equals(previousEndDate)) {
+				//Subscribers apply changes in order, so days kept by the booking end up occupied again
+				applicationEventPublisher.publishEvent(AvailabilityChange.freed(previousRoomId, previousStartDate, previousEndDate));
+				applicationEventPublisher.publishEvent(AvailabilityChange.occupied(savedBooking.getRoomId(), savedBooking.getStartDate(), savedBooking.getEndDate()));
+			}
+			return savedBooking;
+		}
 	}
 	
-	private void checkIfDatesAreAvailable(Booking booking) {
-		//Reservations start at least the next day of booking
-		List<Booking> checkBooking = bookingRepository.getBookingsByDate(
-				booking.getStartDate(), booking.getEndDate());
-		if(checkBooking.size()>0) {
-			throw new ResponseStatusException(HttpStatus.CONFLICT, "Dates chosen conflict with existing bookings for this room: " + checkBooking);
+	private void checkIfDatesAreAvailable(Booking booking, Long owner) {
+		claimDays(booking, owner);
+		//The index only knows the bookings written through this instance, so the database has the final say
+		if(bookingRepository.existsBookingByRoomAndDateIgnoringId(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner)) {
+			availabilityIndex.release(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner);
+			List<Long> conflicts = new ArrayList<>();
+			for(Booking conflict : bookingRepository.getBookingsByRoomAndDateIgnoringId(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner)) {
+				conflicts.add(conflict.getId());
+			}
+			rejectConflict(conflicts);
 		}
 	}
 	
-	private void checkIfDatesAreAvailableForUpdate(Booking toBeUpdated) {		
-		//Reservations start at least the next day of booking
-		List<Booking> checkBooking = bookingRepository.getBookingsByDateIgnoringId(
-				toBeUpdated.getStartDate(), toBeUpdated.getEndDate(), toBeUpdated.getId());
-		if(checkBooking.size()>0) {
-			throw new ResponseStatusException(HttpStatus.CONFLICT, "Dates chosen conflict with existing bookings for this room: " + checkBooking);
+	private void claimDays(Booking booking, Long owner) {
+		//Claiming the days is the availability check, so concurrent requests for the same days cannot both pass it
+		if(!availabilityIndex.claim(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner)) {
+			rejectConflict(availabilityIndex.findConflicts(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner));
 		}
 	}
 	
-	private void validateNameNotNull(Booking booking) {
+	private void rejectStoredConflicts(List<Integer> acceptedIndexes, List<Booking> acceptedBookings, List<Long> claimIds, BookingResult[] results) {
+		//The database is read once for each room of the batch, over the days its entries span
+		Map<Long, List<Integer>> entriesByRoom = new LinkedHashMap<>();
+		for(int j = 0; j < acceptedBookings.size(); j++) {
+			entriesByRoom.computeIfAbsent(acceptedBookings.get(j).getRoomId(), roomId -> new ArrayList<>()).add(j);
+		}
+		Set<Integer> rejected = new HashSet<>();
+		for(Map.Entry<Long, List<Integer>> room : entriesByRoom.entrySet()) {
+			List<Integer> entries = room.getValue();
+			//Entries of a room claimed their days, so they never overlap each other and are ordered by either date
+			entries.sort(Comparator.comparing(j -> acceptedBookings.get(j).getStartDate()));
+			LocalDate startDate = acceptedBookings.get(entries.get(0)).getStartDate();
+			LocalDate endDate = startDate;
+			for(Integer j : entries) {
+				if(acceptedBookings.get(j).getEndDate().isAfter(endDate)) endDate = acceptedBookings.get(j).getEndDate();
+			}
+			List<Booking> stored = bookingRepository.getBookingsByRoomAndDateIgnoringId(room.getKey(), startDate, endDate, 0l);
+			//Stored bookings do not overlap either, so both lists are walked once
+			int first = 0;
+			for(Integer j : entries) {
+				Booking booking = acceptedBookings.get(j);
+				while(first<stored.size() && stored.get(first).getEndDate().isBefore(booking.getStartDate())) {
+					first++;
+				}
+				List<Long> conflicts = new ArrayList<>();
+				for(int k = first; k < stored.size() && !stored.get(k).getStartDate().isAfter(booking.getEndDate()); k++) {
+					conflicts.add(stored.get(k).getId());
+				}
+				if(conflicts.isEmpty()) {
+					continue;
+				}
+				availabilityIndex.release(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), claimIds.get(j));
+				try {
+					rejectConflict(conflicts);
+				} catch(BookingRejectedException e) {
+					results[acceptedIndexes.get(j)] = BookingResult.rejected(acceptedIndexes.get(j), booking, e.getReason());
+				}
+				rejected.add(j);
+			}
+		}
+		for(int j = acceptedBookings.size() - 1; j >= 0; j--) {
+			if(rejected.contains(j)) {
+				acceptedIndexes.remove(j);
+				acceptedBookings.remove(j);
+				claimIds.remove(j);
+			}
+		}
+	}
+	
+	private void confirmAfterCommit(List<Long> claimIds, List<Booking> savedBookings) {
+		//The days stay claimed until the commit, and are given back if the batch is rolled back
+		if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+			for(int j = 0; j < savedBookings.size(); j++) {
+				availabilityIndex.confirm(claimIds.get(j), savedBookings.get(j));
+			}
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				for(int j = 0; j < savedBookings.size(); j++) {
+					Booking booking = savedBookings.get(j);
+					if(status==STATUS_COMMITTED) {
+						availabilityIndex.confirm(claimIds.get(j), booking);
+					} else {
+						availabilityIndex.release(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), claimIds.get(j));
+					}
+				}
+			}
+		});
+	}
+	
+	private Booking saveClaimedBooking(Booking booking, Long owner) {
+		Booking savedBooking;
+		try {
+			savedBooking = bookingRepository.save(booking);
+		} catch(RuntimeException e) {
+			availabilityIndex.release(booking.getRoomId(), booking.getStartDate(), booking.getEndDate(), owner);
+			throw e;
+		}
+		availabilityIndex.confirm(owner, savedBooking);
+		bookingQueryCache.invalidate(savedBooking.getStartDate(), savedBooking.getEndDate());
+		return savedBooking;
+	}
+	
+	private void rejectConflict(List<Long> conflicts) {
+		//Only the ids are listed, and only the first ones, so the rejection stays small whatever the booking sizes are
+		String conflictIds = conflicts.size()<=MAX_CONFLICTS_IN_MESSAGE ? conflicts.toString()
+				: conflicts.subList(0, MAX_CONFLICTS_IN_MESSAGE) + " and " + (conflicts.size() - MAX_CONFLICTS_IN_MESSAGE) + " more";
+		rejectIfInvalid(new ValidationResult().reject(RejectionReason.CONFLICT, HttpStatus.CONFLICT,
+				"Dates chosen conflict with existing bookings for this room: " + conflictIds));
+	}
+	
+	private void rejectIfInvalid(ValidationResult result) {
+		if(result.isValid()) {
+			return;
+		}
+		for(Violation violation : result.getViolations()) {
+			bookingMetrics.rejected(violation.getReason());
+		}
+		throw result.toException();
+	}
+	
+	private void useDefaultRoom(Booking booking) {
+		if(booking.getRoomId()==null) booking.setRoomId(Room.DEFAULT_ROOM_ID);
+	}
+	
+	private ValidationResult validateBooking(Booking booking, LocalDate today) {
+		ValidationResult result = new ValidationResult();
 		if(booking.getName()==null) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: name");
+			result.reject(RejectionReason.NAME_MISSING, HttpStatus.BAD_REQUEST, "Missing value: name");
 		}
+		validateDates(booking, result);
+		if(booking.getStartDate()!=null && booking.getEndDate()!=null) {
+			validateHotelRules(booking, today, result);
+		}
+		validateRoom(booking, result);
+		return result;
 	}
 	
-	private void validateDatesNotNull(Booking booking) {
+	private ValidationResult validateDates(Booking booking, ValidationResult result) {
 		if(booking.getStartDate()==null) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: startDate");
+			result.reject(RejectionReason.DATES_MISSING, HttpStatus.BAD_REQUEST, "Missing value: startDate");
 		}
 		if(booking.getEndDate()==null) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: endDate");
+			result.reject(RejectionReason.DATES_MISSING, HttpStatus.BAD_REQUEST, "Missing value: endDate");
+		}
+		if(booking.getStartDate()!=null && booking.getEndDate()!=null && booking.getStartDate().isAfter(booking.getEndDate())) {
+			result.reject(RejectionReason.DATE_ORDER, HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
 		}
+		return result;
 	}
-	
-	private void validateDateOrder(Booking booking) {
-		if(booking.getStartDate().isAfter(booking.getEndDate())) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
+		
+	private void validateRoom(Booking booking, ValidationResult result) {
+		if(!availabilityIndex.hasRoom(booking.getRoomId())) {
+			result.reject(RejectionReason.ROOM_NOT_FOUND, HttpStatus.NOT_FOUND, "Room not found: " + booking.getRoomId());
 		}
 	}
 		
-	private void validateHotelRules(Booking booking) {
+	private void validateHotelRules(Booking booking, LocalDate today, ValidationResult result) {
 		if((booking.getEndDate().minusDays(MAX_DAYS_OF_STAY-1)).isAfter(booking.getStartDate())){
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stays cannot be longer than " + MAX_DAYS_OF_STAY + " days");
-		}
-		if(booking.getStartDate().isAfter(LocalDate.now().plusDays(MAX_DAYS_TO_RESERVE_IN_ADVANCE))){
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stays cannot be reserved more than " + MAX_DAYS_TO_RESERVE_IN_ADVANCE + " days in advance");
+			result.reject(RejectionReason.STAY_TOO_LONG, HttpStatus.BAD_REQUEST, "Stays cannot be longer than " + MAX_DAYS_OF_STAY + " days");
 		}
-		if(booking.getStartDate().isAfter(booking.getEndDate())){
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
+		if(booking.getStartDate().isAfter(today.plusDays(MAX_DAYS_TO_RESERVE_IN_ADVANCE))){
+			result.reject(RejectionReason.TOO_FAR_IN_ADVANCE, HttpStatus.BAD_REQUEST, "Stays cannot be reserved more than " + MAX_DAYS_TO_RESERVE_IN_ADVANCE + " days in advance");
 		}
-		if(LocalDate.now().equals(booking.getStartDate()) || LocalDate.now().isAfter(booking.getStartDate())){
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate is invalid: Reservations start at least the next day of booking");
+		if(!booking.getStartDate().isAfter(today)){
+			result.reject(RejectionReason.START_DATE_NOT_IN_FUTURE, HttpStatus.BAD_REQUEST, "startDate is invalid: Reservations start at least the next day of booking");
 		}
 	}
 
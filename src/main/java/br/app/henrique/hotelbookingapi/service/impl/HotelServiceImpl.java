@@ -0,0 +1,105 @@
+package br.app.henrique.hotelbookingapi.service.impl;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.model.Hotel;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.repository.HotelRepository;
+import br.app.henrique.hotelbookingapi.repository.RoomRepository;
+import br.app.henrique.hotelbookingapi.service.HotelService;
+import io.micrometer.core.annotation.Timed;
+
+@Service
+public class HotelServiceImpl implements HotelService{
+	
+	private static final Integer DEFAULT_FREE_ROOMS_LIMIT = 10;
+	private static final Integer MAX_FREE_ROOMS_LIMIT = 1000;
+	
+	@Autowired
+	HotelRepository hotelRepository;
+	
+	@Autowired
+	RoomRepository roomRepository;
+	
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+	
+	@PostConstruct
+	void createDefaultRoom() {
+		//Bookings made before rooms existed, or without a room, are for the first room of the first hotel
+		if(roomRepository.count()==0) {
+			Hotel hotel = hotelRepository.save(new Hotel("Hotel"));
+			Room room = roomRepository.save(new Room("1", hotel.getId()));
+			availabilityIndex.addRoom(room.getId(), room.getHotelId());
+		}
+	}
+	
+	public Hotel createHotel(Hotel hotel) {
+		if(hotel.getName()==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: name");
+		}
+		hotel.setId(null);
+		return hotelRepository.save(hotel);
+	}
+	
+	public List<Hotel> returnAllHotels() {
+		return hotelRepository.findAll();
+	}
+	
+	public Room createRoom(Long hotelId, Room room) {
+		validateHotelExists(hotelId);
+		if(room.getName()==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: name");
+		}
+		room.setId(null);
+		room.setHotelId(hotelId);
+		Room savedRoom = roomRepository.save(room);
+		availabilityIndex.addRoom(savedRoom.getId(), savedRoom.getHotelId());
+		return savedRoom;
+	}
+	
+	public List<Room> returnRooms(Long hotelId) {
+		validateHotelExists(hotelId);
+		return roomRepository.findByHotelIdOrderByIdAsc(hotelId);
+	}
+	
+	@Timed(value = "booking.service", extraTags = {"operation", "free_rooms"})
+	public List<Room> findFreeRooms(Long hotelId, LocalDate startDate, LocalDate endDate, Integer limit) {
+		if(startDate==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: startDate");
+		}
+		if(endDate==null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing value: endDate");
+		}
+		if(startDate.isAfter(endDate)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "startDate cannot be higher than endDate");
+		}
+		if(limit==null) limit = DEFAULT_FREE_ROOMS_LIMIT;
+		if(limit<1 || limit>MAX_FREE_ROOMS_LIMIT) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_FREE_ROOMS_LIMIT);
+		}
+		
+		//The search runs on the in-memory calendars, only the rooms found are read from the database
+		List<Long> freeRoomIds = availabilityIndex.findFreeRooms(hotelId, startDate, endDate, limit);
+		List<Room> freeRooms = roomRepository.findAllById(freeRoomIds);
+		freeRooms.sort(Comparator.comparing(Room::getId));
+		return freeRooms;
+	}
+	
+	private void validateHotelExists(Long hotelId) {
+		if(!hotelRepository.existsById(hotelId)) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Hotel not found: " + hotelId);
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+package br.app.henrique.hotelbookingapi.service.impl;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityChange;
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.metrics.RejectionReason;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+import br.app.henrique.hotelbookingapi.repository.WaitlistRepository;
+import br.app.henrique.hotelbookingapi.service.BookingService;
+import br.app.henrique.hotelbookingapi.service.WaitlistService;
+import br.app.henrique.hotelbookingapi.validation.BookingRejectedException;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Service
+public class WaitlistServiceImpl implements WaitlistService{
+
+	private static final Logger log = LoggerFactory.getLogger(WaitlistServiceImpl.class);
+
+	public static final String PROMOTIONS = "booking.waitlist.promotions";
+
+	@Autowired
+	WaitlistRepository waitlistRepository;
+
+	@Autowired
+	BookingService bookingService;
+
+	@Autowired
+	AvailabilityIndex availabilityIndex;
+
+	@Autowired
+	Clock clock;
+
+	@Value("${booking.waitlist.enabled:true}")
+	boolean enabled;
+
+	private final Counter promotions;
+
+	//Matching runs on a single thread, so entries of a room are always promoted in the order they joined.
+	//Rooms freed again before their matching starts are only matched once
+	private final ThreadPoolTaskExecutor executor;
+	private final Set<Long> pendingRooms = ConcurrentHashMap.newKeySet();
+
+	public WaitlistServiceImpl(MeterRegistry meterRegistry) {
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setThreadNamePrefix("booking-waitlist-");
+		executor.setDaemon(true);
+		executor.initialize();
+		promotions = Counter.builder(PROMOTIONS)
+				.description("Waitlisted booking requests turned into bookings after their dates were freed")
+				.register(meterRegistry);
+	}
+
+	@Timed(value = "booking.service", extraTags = {"operation", "waitlist-join"})
+	public WaitlistEntry joinWaitlist(Booking booking) {
+		if(!enabled) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Waitlist is disabled");
+		}
+		//Free dates are booked right away, so only a request rejected for its dates waits.
+		//Any other rejection is returned as it is, as the request would never be promoted
+		try {
+			Booking createdBooking = bookingService.createBooking(booking);
+			WaitlistEntry entry = new WaitlistEntry(createdBooking, LocalDateTime.now(clock));
+			entry.promote(createdBooking.getId());
+			return waitlistRepository.save(entry);
+		} catch(BookingRejectedException e) {
+			if(e.getViolations().isEmpty() || e.getViolations().get(0).getReason()!=RejectionReason.CONFLICT) {
+				throw e;
+			}
+		}
+		WaitlistEntry entry = waitlistRepository.save(new WaitlistEntry(booking, LocalDateTime.now(clock)));
+		//The dates may have been freed between the rejection and the entry being saved
+		scheduleMatching(entry.getRoomId());
+		return entry;
+	}
+
+	public WaitlistEntry returnWaitlistEntry(String id) {
+		return waitlistRepository.findById(Long.valueOf(id)).orElseThrow(
+				() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Waitlist entry not found: " + id));
+	}
+
+	public WaitlistEntry leaveWaitlist(String id) {
+		WaitlistEntry entry = returnWaitlistEntry(id);
+		if(entry.getStatus()==WaitlistEntry.Status.WAITING
+				&& waitlistRepository.updateStatus(entry.getId(), WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED)==1) {
+			entry.setStatus(WaitlistEntry.Status.CANCELLED);
+			return entry;
+		}
+		//Read again, as the matcher may have claimed the entry since it was read
+		throw new ResponseStatusException(HttpStatus.CONFLICT, "Waitlist entry is no longer waiting: " + returnWaitlistEntry(id).getStatus());
+	}
+
+	//After the commit, so a cancellation that was rolled back never promotes anyone
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAvailabilityChange(AvailabilityChange change) {
+		if(enabled && change.isAvailable()) {
+			scheduleMatching(change.getRoomId());
+		}
+	}
+
+	public int promoteWaitingEntries(Long roomId) {
+		int promoted = 0;
+		for(WaitlistEntry entry : waitlistRepository.getEntriesByRoomAndStatusStartingAfter(roomId, WaitlistEntry.Status.WAITING, LocalDate.now(clock))) {
+			//Entries still overlapping a booking are skipped without a booking request, which would only be rejected
+			if(!availabilityIndex.findConflicts(entry.getRoomId(), entry.getStartDate(), entry.getEndDate(), null).isEmpty()) {
+				continue;
+			}
+			//Claimed before it is booked, so a guest leaving at the same time either cancels it first or finds it promoted
+			if(waitlistRepository.updateStatus(entry.getId(), WaitlistEntry.Status.WAITING, WaitlistEntry.Status.PROMOTED)==0) {
+				continue;
+			}
+			//Creating the booking claims the days, so an entry is only promoted if the days are still free,
+			//and a later entry overlapping it is then skipped
+			Booking booking;
+			try {
+				booking = bookingService.createBooking(new Booking(entry.getName(), entry.getRoomId(), entry.getStartDate(), entry.getEndDate()));
+			} catch(BookingRejectedException e) {
+				if(e.getViolations().isEmpty() || e.getViolations().get(0).getReason()!=RejectionReason.CONFLICT) {
+					//The request no longer follows the hotel rules, e.g. it now starts too soon
+					waitlistRepository.updateStatus(entry.getId(), WaitlistEntry.Status.PROMOTED, WaitlistEntry.Status.EXPIRED);
+					entry.setStatus(WaitlistEntry.Status.EXPIRED);
+				} else {
+					waitlistRepository.updateStatus(entry.getId(), WaitlistEntry.Status.PROMOTED, WaitlistEntry.Status.WAITING);
+				}
+				continue;
+			} catch(RuntimeException e) {
+				waitlistRepository.updateStatus(entry.getId(), WaitlistEntry.Status.PROMOTED, WaitlistEntry.Status.WAITING);
+				throw e;
+			}
+			entry.promote(booking.getId());
+			waitlistRepository.save(entry);
+			promoted++;
+			promotions.increment();
+		}
+		return promoted;
+	}
+
+	@Scheduled(fixedDelayString = "${booking.waitlist.expiry-interval:PT1H}")
+	@Transactional
+	public void expireWaitingEntries() {
+		//Entries starting today or earlier can no longer be booked
+		int expired = waitlistRepository.updateStatusOfEntriesStartingUntil(WaitlistEntry.Status.WAITING, WaitlistEntry.Status.EXPIRED, LocalDate.now(clock));
+		if(expired>0) {
+			log.info("Expired {} waitlist entries", expired);
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdown();
+	}
+
+	private void scheduleMatching(Long roomId) {
+		if(!pendingRooms.add(roomId)) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				//Removed before matching, so days freed while it runs are matched again
+				pendingRooms.remove(roomId);
+				try {
+					int promoted = promoteWaitingEntries(roomId);
+					if(promoted>0) {
+						log.info("Promoted {} waitlist entries of room {}", promoted, roomId);
+					}
+				} catch(RuntimeException e) {
+					log.error("Could not promote waitlist entries of room " + roomId, e);
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			pendingRooms.remove(roomId);
+			log.warn("Could not schedule waitlist matching of room {}", roomId);
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package br.app.henrique.hotelbookingapi.validation;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+//Rejections are expected outcomes answered with their status, so no stack trace is captured for them
+public class BookingRejectedException extends ResponseStatusException {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private final transient List<Violation> violations;
+	
+	public BookingRejectedException(HttpStatus status, String reason, List<Violation> violations) {
+		super(status, reason);
+		this.violations = violations;
+	}
+	
+	public List<Violation> getViolations() {
+		return violations;
+	}
+	
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+	
+}
@@ -0,0 +1,45 @@
+package br.app.henrique.hotelbookingapi.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+
+import br.app.henrique.hotelbookingapi.metrics.RejectionReason;
+
+//Every rule is checked and its violation recorded, so one pass reports all that is wrong with a request
+public final class ValidationResult {
+	
+	//Most requests are valid, so the list is only created for the first violation
+	private List<Violation> violations;
+	
+	public ValidationResult reject(RejectionReason reason, HttpStatus status, String message) {
+		if(violations==null) {
+			violations = new ArrayList<>(2);
+		}
+		violations.add(new Violation(reason, status, message));
+		return this;
+	}
+	
+	public boolean isValid() {
+		return violations==null;
+	}
+	
+	public List<Violation> getViolations() {
+		return violations==null ? Collections.emptyList() : Collections.unmodifiableList(violations);
+	}
+	
+	public BookingRejectedException toException() {
+		if(violations==null) {
+			throw new IllegalStateException("A valid request cannot be rejected");
+		}
+		//The first violation decides the status, e.g. a missing name is a 400 even if the room is not found too
+		StringBuilder reason = new StringBuilder(violations.get(0).getMessage());
+		for(int i = 1; i < violations.size(); i++) {
+			reason.append("; ").append(violations.get(i).getMessage());
+		}
+		return new BookingRejectedException(violations.get(0).getStatus(), reason.toString(), getViolations());
+	}
+	
+}
@@ -0,0 +1,36 @@
+package br.app.henrique.hotelbookingapi.validation;
+
+import org.springframework.http.HttpStatus;
+
+import br.app.henrique.hotelbookingapi.metrics.RejectionReason;
+
+public final class Violation {
+	
+	private final RejectionReason reason;
+	private final HttpStatus status;
+	private final String message;
+	
+	public Violation(RejectionReason reason, HttpStatus status, String message) {
+		this.reason = reason;
+		this.status = status;
+		this.message = message;
+	}
+
+	public RejectionReason getReason() {
+		return reason;
+	}
+
+	public HttpStatus getStatus() {
+		return status;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		return "Violation [reason=" + reason + ", status=" + status + ", message=" + message + "]";
+	}
+	
+}
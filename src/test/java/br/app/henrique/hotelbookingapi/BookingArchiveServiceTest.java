@@ -0,0 +1,208 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.ArchivedBookingRepository;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingArchiveService;
+import br.app.henrique.hotelbookingapi.service.impl.BookingArchiveServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+class BookingArchiveServiceTest {
+
+	@Mock
+	BookingStore bookingRepository;
+
+	@Mock
+	ArchivedBookingRepository archivedBookingRepository;
+
+	@Spy
+	AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+	@Spy
+	BookingQueryCache bookingQueryCache = new BookingQueryCache();
+
+	@Spy
+	TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+	@InjectMocks
+	BookingArchiveServiceImpl bookingArchiveService;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		ReflectionTestUtils.setField(bookingArchiveService, "batchSize", 2);
+		ReflectionTestUtils.setField(bookingArchiveService, "clock", Clock.systemDefaultZone());
+		availabilityIndex.addRoom(1l, 1l);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testArchivePastBookingsInBatches() {
+		//Setup
+		Booking first = newBooking(1l, LocalDate.now().minusDays(10), LocalDate.now().minusDays(9));
+		Booking second = newBooking(2l, LocalDate.now().minusDays(5), LocalDate.now().minusDays(4));
+		Booking third = newBooking(3l, LocalDate.now().minusDays(2), LocalDate.now().minusDays(1));
+		availabilityIndex.put(third);
+		when(bookingRepository.getBookingsEndedBefore(eq(LocalDate.now()), any()))
+			.thenReturn(List.of(first, second), List.of(third));
+
+	    //Execute
+		int result = bookingArchiveService.archivePastBookings();
+
+		//Validate
+		assertEquals(3, result);
+		ArgumentCaptor<List<ArchivedBooking>> archived = ArgumentCaptor.forClass(List.class);
+		verify(archivedBookingRepository, times(2)).saveAllAndFlush(archived.capture());
+		assertEquals(1l, archived.getAllValues().get(0).get(0).getId());
+		assertEquals(3l, archived.getAllValues().get(1).get(0).getId());
+		assertEquals(third.getStartDate(), archived.getAllValues().get(1).get(0).getStartDate());
+		verify(bookingRepository).deleteAll(List.of(first, second));
+		verify(bookingRepository).deleteAll(List.of(third));
+		verify(bookingQueryCache).invalidateAll();
+		assertTrue(availabilityIndex.calendar(1l, third.getStartDate(), third.getEndDate()).values().stream().allMatch(free -> free));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testArchivePastBookingsOnlyDeletesBookingsAlreadyArchived() {
+		//Setup
+		Booking archivedBefore = newBooking(1l, LocalDate.now().minusDays(10), LocalDate.now().minusDays(9));
+		Booking notArchived = newBooking(2l, LocalDate.now().minusDays(5), LocalDate.now().minusDays(4));
+		when(bookingRepository.getBookingsEndedBefore(eq(LocalDate.now()), any()))
+			.thenReturn(List.of(archivedBefore, notArchived), Collections.emptyList());
+		when(archivedBookingRepository.findAllById(List.of(1l, 2l))).thenReturn(List.of(new ArchivedBooking(archivedBefore, LocalDateTime.now())));
+
+	    //Execute
+		int result = bookingArchiveService.archivePastBookings();
+
+		//Validate
+		assertEquals(2, result);
+		ArgumentCaptor<List<ArchivedBooking>> archived = ArgumentCaptor.forClass(List.class);
+		verify(archivedBookingRepository).saveAllAndFlush(archived.capture());
+		assertEquals(1, archived.getValue().size());
+		assertEquals(2l, archived.getValue().get(0).getId());
+		verify(bookingRepository).deleteAll(List.of(archivedBefore, notArchived));
+	}
+
+	@Test
+	void testArchivePastBookingsKeepsBookingsWhoseIdIsTakenByAnImportedRow() {
+		//Setup
+		Booking imported = new Booking("Silva", 2l, LocalDate.now().minusDays(30), LocalDate.now().minusDays(28));
+		imported.setId(1l);
+		imported.setVersion(0l);
+		Booking booking = newBooking(1l, LocalDate.now().minusDays(10), LocalDate.now().minusDays(9));
+		when(bookingRepository.getBookingsEndedBefore(eq(LocalDate.now()), any())).thenReturn(List.of(booking));
+		when(archivedBookingRepository.findAllById(List.of(1l))).thenReturn(List.of(new ArchivedBooking(imported, LocalDateTime.now())));
+
+	    //Execute
+		assertThrows(DataIntegrityViolationException.class, () -> bookingArchiveService.archivePastBookings());
+
+		//Validate
+		verify(archivedBookingRepository, never()).saveAllAndFlush(anyList());
+		verify(bookingRepository, never()).deleteAll(anyList());
+	}
+
+	@Test
+	void testArchivePastBookingsWithNothingToArchive() {
+		//Setup
+		when(bookingRepository.getBookingsEndedBefore(eq(LocalDate.now()), any())).thenReturn(Collections.emptyList());
+
+	    //Execute
+		int result = bookingArchiveService.archivePastBookings();
+
+		//Validate
+		assertEquals(0, result);
+		verify(archivedBookingRepository, never()).saveAllAndFlush(anyList());
+		verify(bookingQueryCache, never()).invalidateAll();
+	}
+
+	@Test
+	void testArchivePastBookingsKeepsCurrentBookingsInIndex() {
+		//Setup
+		Booking current = newBooking(4l, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		availabilityIndex.put(current);
+		when(bookingRepository.getBookingsEndedBefore(eq(LocalDate.now()), any())).thenReturn(Collections.emptyList());
+
+	    //Execute
+		bookingArchiveService.archivePastBookings();
+
+		//Validate
+		assertEquals(List.of(4l), availabilityIndex.findConflicts(1l, current.getStartDate(), current.getEndDate(), null));
+	}
+
+	@Test
+	void testScheduledArchiveRunsThroughProxy() {
+		//Setup
+		BookingArchiveService proxy = mock(BookingArchiveService.class);
+		ReflectionTestUtils.setField(bookingArchiveService, "bookingArchiveService", proxy);
+		ReflectionTestUtils.setField(bookingArchiveService, "enabled", true);
+
+	    //Execute
+		bookingArchiveService.archivePastBookingsOnSchedule();
+
+		//Validate
+		verify(proxy).archivePastBookings();
+		verify(bookingRepository, never()).getBookingsEndedBefore(any(), any());
+	}
+
+	@Test
+	void testReturnArchivedBookingsWithoutStartDate() {
+		//Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+				() -> bookingArchiveService.returnArchivedBookings(null, LocalDate.now(), null, null));
+
+		//Validate
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+		assertEquals("Missing value: startDate", exception.getReason());
+	}
+
+	@Test
+	void testReturnArchivedBookingsWithInvalidLimit() {
+		//Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+				() -> bookingArchiveService.returnArchivedBookings(LocalDate.now().minusDays(10), LocalDate.now(), null, 1001));
+
+		//Validate
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+	}
+
+	private Booking newBooking(Long id, LocalDate startDate, LocalDate endDate) {
+		Booking booking = new Booking("Correia", startDate, endDate);
+		booking.setId(id);
+		return booking;
+	}
+
+}
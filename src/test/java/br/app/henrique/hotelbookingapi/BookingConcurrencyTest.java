@@ -0,0 +1,180 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.availability.BookingHolds;
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+import br.app.henrique.hotelbookingapi.metrics.BookingMetrics;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.impl.BookingServiceImpl;
+
+class BookingConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int REQUESTS_PER_THREAD = 5000;
+
+	BookingServiceImpl bookingService;
+	Queue<Booking> savedBookings;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		savedBookings = new ConcurrentLinkedQueue<Booking>();
+		AtomicLong idSequence = new AtomicLong();
+
+		//stubOnly keeps Mockito from recording every one of the invocations below
+		BookingStore bookingRepository = mock(BookingStore.class, withSettings().stubOnly());
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking booking = invocation.getArgument(0);
+			booking.setId(idSequence.incrementAndGet());
+			savedBookings.add(booking);
+			return booking;
+		});
+
+		bookingService = new BookingServiceImpl();
+		ReflectionTestUtils.setField(bookingService, "bookingRepository", bookingRepository);
+		AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+		availabilityIndex.addRoom(1l, 1l);
+		ReflectionTestUtils.setField(bookingService, "availabilityIndex", availabilityIndex);
+		ReflectionTestUtils.setField(bookingService, "bookingQueryCache", new BookingQueryCache());
+		ReflectionTestUtils.setField(bookingService, "bookingMetrics", new BookingMetrics(new SimpleMeterRegistry()));
+		ApplicationEventPublisher applicationEventPublisher = event -> {};
+		ReflectionTestUtils.setField(bookingService, "applicationEventPublisher", applicationEventPublisher);
+		ReflectionTestUtils.setField(bookingService, "clock", Clock.systemDefaultZone());
+		BookingHolds bookingHolds = new BookingHolds(new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(bookingHolds, "availabilityIndex", availabilityIndex);
+		ReflectionTestUtils.setField(bookingHolds, "applicationEventPublisher", applicationEventPublisher);
+		ReflectionTestUtils.setField(bookingService, "bookingHolds", bookingHolds);
+	}
+
+	@Test
+	void testConcurrentCreateBookingNeverDoubleBooks() throws Exception {
+		//Setup
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicLong conflicts = new AtomicLong();
+
+	    //Execute
+		for(int i = 0; i < THREADS; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for(int j = 0; j < REQUESTS_PER_THREAD; j++) {
+					LocalDate startDate = LocalDate.now().plusDays(random.nextInt(1, 31));
+					try {
+						bookingService.createBooking(new Booking("Guest", startDate, startDate.plusDays(random.nextInt(0, 3))));
+					} catch (ResponseStatusException e) {
+						conflicts.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		//Validate
+		List<Booking> result = new ArrayList<Booking>(savedBookings);
+		result.sort(Comparator.comparing(Booking::getStartDate));
+		assertFalse(result.isEmpty());
+		assertEquals(THREADS * REQUESTS_PER_THREAD, result.size() + conflicts.get());
+		for(int i = 1; i < result.size(); i++) {
+			assertTrue(result.get(i).getStartDate().isAfter(result.get(i - 1).getEndDate()),
+					"Double booking: " + result.get(i - 1) + " and " + result.get(i));
+		}
+	}
+
+	@Test
+	void testConcurrentCreateBookingForSameDatesAcceptsOnlyOne() throws Exception {
+		//Setup
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+
+	    //Execute
+		for(int i = 0; i < THREADS; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+					bookingService.createBooking(new Booking("Guest", LocalDate.now().plusDays(5), LocalDate.now().plusDays(7)));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ResponseStatusException e) {
+					//expected for all but one request
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		//Validate
+		assertEquals(1, savedBookings.size());
+	}
+
+	@Test
+	void testConcurrentHoldsAndBookingsForSameDatesAcceptOnlyOne() throws Exception {
+		//Setup
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicLong holds = new AtomicLong();
+
+	    //Execute
+		for(int i = 0; i < THREADS; i++) {
+			boolean hold = i % 2 == 0;
+			executor.execute(() -> {
+				try {
+					start.await();
+					Booking booking = new Booking("Guest", LocalDate.now().plusDays(5), LocalDate.now().plusDays(7));
+					if(hold) {
+						bookingService.holdBooking(booking, 10);
+						holds.incrementAndGet();
+					} else {
+						bookingService.createBooking(booking);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ResponseStatusException e) {
+					//expected for all but one request
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		//Validate
+		assertEquals(1, savedBookings.size() + holds.get());
+	}
+}
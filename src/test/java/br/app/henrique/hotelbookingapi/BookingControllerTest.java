@@ -0,0 +1,129 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BookingControllerTest {
+
+	@Autowired
+	MockMvc mockMvc;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Test
+	void testUpdateWithoutIfMatch() throws Exception {
+		//Setup
+		String id = createBooking(2);
+
+	    //Execute
+		ResultActions result = update(id, null);
+
+		//Validate
+		result.andExpect(status().isAccepted())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+	}
+
+	@Test
+	void testUpdateWithCurrentIfMatch() throws Exception {
+		//Setup
+		String id = createBooking(5);
+
+	    //Execute
+		ResultActions result = update(id, "\"0\"");
+
+		//Validate
+		result.andExpect(status().isAccepted())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+	}
+
+	@Test
+	void testUpdateWithStaleIfMatch() throws Exception {
+		//Setup
+		String id = createBooking(8);
+		update(id, "\"0\"").andExpect(status().isAccepted());
+
+	    //Execute
+		ResultActions result = update(id, "\"0\"");
+
+		//Validate
+		result.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	void testUpdateWithWeakIfMatch() throws Exception {
+		//Setup
+		String id = createBooking(11);
+
+	    //Execute
+		ResultActions result = update(id, "W/\"0\"");
+
+		//Validate
+		result.andExpect(status().isPreconditionFailed());
+		update(id, "\"0\"").andExpect(status().isAccepted());
+	}
+
+	@Test
+	void testUpdateWithMalformedIfMatch() throws Exception {
+		//Setup
+		String id = createBooking(14);
+
+	    //Execute
+		ResultActions unquoted = update(id, "0");
+		ResultActions notAVersion = update(id, "\"abc\"");
+
+		//Validate
+		unquoted.andExpect(status().isBadRequest());
+		notAVersion.andExpect(status().isBadRequest());
+	}
+
+	//Each test books its own days, as the tests share the application and its database
+	private String createBooking(int daysFromNow) throws Exception {
+		String response = mockMvc.perform(post("/booking/new")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(bookingJson("Correia", LocalDate.now().plusDays(daysFromNow))))
+			.andExpect(status().isCreated())
+			.andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+			.andReturn().getResponse().getContentAsString();
+		JsonNode booking = objectMapper.readTree(response);
+		assertTrue(booking.hasNonNull("id"));
+		return booking.get("id").asText();
+	}
+
+	private ResultActions update(String id, String ifMatch) throws Exception {
+		//Only the name changes, so every update keeps the days of the booking
+		return mockMvc.perform(post("/booking/update/" + id)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Romano\"}")
+				.headers(ifMatch==null ? new HttpHeaders() : ifMatchHeader(ifMatch)));
+	}
+
+	private HttpHeaders ifMatchHeader(String ifMatch) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.IF_MATCH, ifMatch);
+		return headers;
+	}
+
+	private String bookingJson(String name, LocalDate startDate) {
+		return "{\"name\":\"" + name + "\",\"startDate\":\"" + startDate + "\",\"endDate\":\"" + startDate.plusDays(1) + "\"}";
+	}
+
+}
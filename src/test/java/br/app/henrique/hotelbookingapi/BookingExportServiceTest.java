@@ -0,0 +1,82 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.app.henrique.hotelbookingapi.service.BookingFileFormat;
+import br.app.henrique.hotelbookingapi.service.impl.BookingExportServiceImpl;
+
+class BookingExportServiceTest {
+
+	BookingExportServiceImpl bookingExportService;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table booking (id bigint primary key, name varchar(255), room_id bigint, start_date date, end_date date, version bigint)");
+		jdbcTemplate.update("insert into booking values (1, 'Correia', 1, '2030-01-01', '2030-01-02', 0)");
+		jdbcTemplate.update("insert into booking values (2, 'Doe, \"John\"', 2, '2030-01-05', '2030-01-07', 3)");
+		jdbcTemplate.update("insert into booking values (3, 'Romano', 1, '2030-01-10', '2030-01-11', null)");
+		bookingExportService = new BookingExportServiceImpl(dataSource, 2);
+		ReflectionTestUtils.setField(bookingExportService, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(bookingExportService, "environment", new MockEnvironment());
+	}
+
+	@Test
+	void testExportCsv() throws Exception {
+		//Setup
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	    //Execute
+		long result = bookingExportService.exportBookings(null, null, BookingFileFormat.CSV, output);
+
+		//Validate
+		assertEquals(3, result);
+		assertEquals("id,name,roomId,startDate,endDate,version\n"
+				+ "1,Correia,1,2030-01-01,2030-01-02,0\n"
+				+ "2,\"Doe, \"\"John\"\"\",2,2030-01-05,2030-01-07,3\n"
+				+ "3,Romano,1,2030-01-10,2030-01-11,\n", output.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testExportNdjsonWithinDates() throws Exception {
+		//Setup
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+	    //Execute
+		long result = bookingExportService.exportBookings(LocalDate.of(2030, 1, 2), LocalDate.of(2030, 1, 6), BookingFileFormat.NDJSON, output);
+
+		//Validate
+		assertEquals(2, result);
+		assertEquals("{\"id\":1,\"name\":\"Correia\",\"roomId\":1,\"startDate\":\"2030-01-01\",\"endDate\":\"2030-01-02\",\"version\":0}\n"
+				+ "{\"id\":2,\"name\":\"Doe, \\\"John\\\"\",\"roomId\":2,\"startDate\":\"2030-01-05\",\"endDate\":\"2030-01-07\",\"version\":3}\n",
+				output.toString(StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void testExportWithStartDateAfterEndDate() {
+		//Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+				() -> bookingExportService.checkExportRange(LocalDate.of(2030, 1, 6), LocalDate.of(2030, 1, 2)));
+
+		//Validate
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+	}
+
+}
@@ -0,0 +1,240 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.dto.ImportReport;
+import br.app.henrique.hotelbookingapi.model.ArchivedBooking;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.repository.ArchivedBookingRepository;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
+import br.app.henrique.hotelbookingapi.service.BookingFileFormat;
+import br.app.henrique.hotelbookingapi.service.impl.BookingImportServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class BookingImportServiceTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2030, 1, 10);
+
+	@Mock
+	BookingStore bookingRepository;
+
+	@Mock
+	ArchivedBookingRepository archivedBookingRepository;
+
+	@Mock
+	JdbcTemplate jdbcTemplate;
+
+	BookingImportServiceImpl bookingImportService;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		bookingImportService = new BookingImportServiceImpl(new SimpleMeterRegistry());
+		AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+		availabilityIndex.addRoom(1l, 1l);
+		availabilityIndex.addRoom(2l, 1l);
+		ReflectionTestUtils.setField(bookingImportService, "bookingRepository", bookingRepository);
+		ReflectionTestUtils.setField(bookingImportService, "archivedBookingRepository", archivedBookingRepository);
+		ReflectionTestUtils.setField(bookingImportService, "availabilityIndex", availabilityIndex);
+		ReflectionTestUtils.setField(bookingImportService, "jdbcTemplate", jdbcTemplate);
+		ReflectionTestUtils.setField(bookingImportService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+		ReflectionTestUtils.setField(bookingImportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+		ReflectionTestUtils.setField(bookingImportService, "clock",
+				Clock.fixed(TODAY.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+		ReflectionTestUtils.setField(bookingImportService, "environment", new MockEnvironment());
+		ReflectionTestUtils.setField(bookingImportService, "enabled", true);
+		ReflectionTestUtils.setField(bookingImportService, "chunkSize", 2);
+	}
+
+	@Test
+	void testImportCsvInChunks() throws Exception {
+		//Setup
+		InputStream input = file("roomId,name,startDate,endDate",
+				"1,\"Doe, John\",2029-12-01,2029-12-02",
+				"1,Romano,2029-12-03,2029-12-04",
+				"",
+				"2,Correia,2029-12-01,2029-12-03");
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.CSV, 0);
+
+		//Validate
+		assertEquals(ImportReport.Status.COMPLETED, result.getStatus());
+		assertEquals(3, result.getNextOffset());
+		assertEquals(3, result.getImported());
+		List<BatchPreparedStatementSetter> batches = capturedBatches(2);
+		assertEquals(2, batches.get(0).getBatchSize());
+		assertEquals(1, batches.get(1).getBatchSize());
+		PreparedStatement ps = mock(PreparedStatement.class);
+		batches.get(0).setValues(ps, 0);
+		verify(ps).setString(1, "Doe, John");
+		verify(ps).setLong(2, 1l);
+		assertEquals(result, bookingImportService.returnImportProgress());
+	}
+
+	@Test
+	void testImportStopsAtUnsortedRecord() {
+		//Setup
+		InputStream input = file("name,roomId,startDate,endDate",
+				"Correia,1,2029-12-05,2029-12-06",
+				"Romano,1,2029-12-01,2029-12-02",
+				"Henrique,1,2029-12-08,2029-12-09");
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.CSV, 0);
+
+		//Validate
+		assertEquals(ImportReport.Status.FAILED, result.getStatus());
+		assertEquals(1, result.getNextOffset());
+		assertEquals(1, result.getImported());
+		assertEquals("Record 1: bookings must be sorted by roomId and startDate", result.getError());
+		assertEquals(1, capturedBatches(1).get(0).getBatchSize());
+	}
+
+	@Test
+	void testImportRestartsFromOffset() {
+		//Setup
+		InputStream input = file("{\"name\":\"Correia\",\"startDate\":\"2029-12-01\",\"endDate\":\"2029-12-02\"}",
+				"{\"name\":\"Romano\",\"startDate\":\"2029-12-03\",\"endDate\":\"2029-12-04\"}",
+				"{\"name\":\"Henrique\",\"startDate\":\"2029-12-05\",\"endDate\":\"2029-12-06\"}");
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.NDJSON, 2);
+
+		//Validate
+		assertEquals(ImportReport.Status.COMPLETED, result.getStatus());
+		assertEquals(3, result.getNextOffset());
+		assertEquals(1, result.getImported());
+		assertEquals(1, capturedBatches(1).get(0).getBatchSize());
+	}
+
+	@Test
+	void testImportRestartedFromOffsetChecksRecordBeforeIt() {
+		//Setup
+		InputStream input = file("{\"name\":\"Correia\",\"startDate\":\"2029-12-01\",\"endDate\":\"2029-12-02\"}",
+				"{\"name\":\"Romano\",\"startDate\":\"2029-12-03\",\"endDate\":\"2029-12-04\"}",
+				"{\"name\":\"Henrique\",\"startDate\":\"2029-12-04\",\"endDate\":\"2029-12-05\"}");
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.NDJSON, 2);
+
+		//Validate
+		assertEquals(ImportReport.Status.FAILED, result.getStatus());
+		assertEquals(2, result.getNextOffset());
+		assertEquals("Record 2: dates conflict with the previous record", result.getError());
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+	}
+
+	@Test
+	void testImportStopsAtConflictWithStoredBooking() {
+		//Setup
+		Booking stored = new Booking("Stored", 1l, LocalDate.of(2029, 12, 3), LocalDate.of(2029, 12, 4));
+		stored.setId(7l);
+		when(archivedBookingRepository.getArchivedBookingsByRoomAndDate(eq(1l), any(), any()))
+			.thenReturn(List.of(new ArchivedBooking(stored, LocalDateTime.now())));
+		InputStream input = file("name,startDate,endDate",
+				"Correia,2029-12-01,2029-12-02",
+				"Romano,2029-12-04,2029-12-05");
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.CSV, 0);
+
+		//Validate
+		assertEquals(ImportReport.Status.FAILED, result.getStatus());
+		assertEquals(1, result.getNextOffset());
+		assertEquals(1, result.getImported());
+		assertEquals("Record 1: dates conflict with a stored booking of room 1", result.getError());
+		assertEquals(1, capturedBatches(1).get(0).getBatchSize());
+	}
+
+	@Test
+	void testImportRejectsBookingsThatDidNotEnd() {
+		//Setup
+		InputStream input = file("name,startDate,endDate",
+				"Correia," + TODAY.minusDays(1) + "," + TODAY);
+
+	    //Execute
+		ImportReport result = bookingImportService.importBookings(input, BookingFileFormat.CSV, 0);
+
+		//Validate
+		assertEquals(ImportReport.Status.FAILED, result.getStatus());
+		assertEquals(0, result.getNextOffset());
+		assertEquals("Record 0: only bookings that ended before today can be imported", result.getError());
+	}
+
+	@Test
+	void testImportWhenDisabled() {
+		//Setup
+		ReflectionTestUtils.setField(bookingImportService, "enabled", false);
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+				() -> bookingImportService.importBookings(file("name,startDate,endDate"), BookingFileFormat.CSV, 0));
+
+		//Validate
+		assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+	}
+
+	@Test
+	void testImportWithJournalStore() {
+		//Setup
+		MockEnvironment environment = new MockEnvironment();
+		environment.setActiveProfiles("journal");
+		ReflectionTestUtils.setField(bookingImportService, "environment", environment);
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+				() -> bookingImportService.importBookings(file("name,startDate,endDate"), BookingFileFormat.CSV, 0));
+
+		//Validate
+		assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+		verify(jdbcTemplate, never()).batchUpdate(anyString(), any(BatchPreparedStatementSetter.class));
+	}
+
+	private List<BatchPreparedStatementSetter> capturedBatches(int batches) {
+		ArgumentCaptor<BatchPreparedStatementSetter> captor = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+		verify(jdbcTemplate, times(batches)).batchUpdate(anyString(), captor.capture());
+		return captor.getAllValues();
+	}
+
+	private InputStream file(String... lines) {
+		return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+	}
+
+}
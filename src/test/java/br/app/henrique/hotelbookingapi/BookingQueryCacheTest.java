@@ -0,0 +1,89 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+
+class BookingQueryCacheTest {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 1, 7);
+
+	BookingQueryCache bookingQueryCache = new BookingQueryCache();
+
+	AtomicInteger queries = new AtomicInteger();
+
+	@Test
+	void testInvalidateOnlyDropsOverlappingRanges() {
+		//Setup
+		query(DAY, DAY.plusDays(3));
+		query(DAY.plusDays(2), DAY.plusDays(20));
+		query(DAY.plusDays(70), DAY.plusDays(72));
+
+	    //Execute
+		bookingQueryCache.invalidate(DAY.plusDays(3), DAY.plusDays(4));
+
+		//Validate
+		query(DAY, DAY.plusDays(3));
+		query(DAY.plusDays(2), DAY.plusDays(20));
+		query(DAY.plusDays(70), DAY.plusDays(72));
+		assertEquals(5, queries.get());
+	}
+
+	@Test
+	void testInvalidateKeepsRangesOfTheSameWeekNotOverlapping() {
+		//Setup
+		query(DAY, DAY.plusDays(1));
+
+	    //Execute
+		bookingQueryCache.invalidate(DAY.plusDays(4), DAY.plusDays(5));
+
+		//Validate
+		query(DAY, DAY.plusDays(1));
+		assertEquals(1, queries.get());
+	}
+
+	@Test
+	void testInvalidateDropsRangesLongerThanAYear() {
+		//Setup
+		query(DAY, DAY.plusYears(2));
+
+	    //Execute
+		bookingQueryCache.invalidate(DAY.plusDays(500), DAY.plusDays(501));
+
+		//Validate
+		query(DAY, DAY.plusYears(2));
+		assertEquals(2, queries.get());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testRangesLeaveTheIndexWithTheCache() {
+		//Setup
+		query(DAY, DAY.plusDays(3));
+		query(DAY, DAY.plusYears(2));
+
+	    //Execute
+		bookingQueryCache.invalidateAll();
+
+		//Validate
+		assertTrue(((Map<Long, ?>) ReflectionTestUtils.getField(bookingQueryCache, "rangesByBucket")).isEmpty());
+		assertTrue(((Set<?>) ReflectionTestUtils.getField(bookingQueryCache, "longRanges")).isEmpty());
+	}
+
+	private void query(LocalDate startDate, LocalDate endDate) {
+		bookingQueryCache.getBookingsByDate(startDate, endDate, () -> {
+			queries.incrementAndGet();
+			return Collections.emptyList();
+		});
+	}
+
+}
@@ -2,33 +2,73 @@ package br.app.henrique.hotelbookingapi;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.server.ResponseStatusException;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityChange;
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.availability.BookingHold;
+import br.app.henrique.hotelbookingapi.availability.BookingHolds;
+import br.app.henrique.hotelbookingapi.cache.BookingQueryCache;
+import br.app.henrique.hotelbookingapi.dto.BookingResult;
+import br.app.henrique.hotelbookingapi.metrics.BookingMetrics;
 import br.app.henrique.hotelbookingapi.model.Booking;
-import br.app.henrique.hotelbookingapi.repository.BookingRepository;
+import br.app.henrique.hotelbookingapi.repository.BookingStore;
 import br.app.henrique.hotelbookingapi.service.impl.BookingServiceImpl;
+import br.app.henrique.hotelbookingapi.validation.BookingRejectedException;
 
 @ExtendWith(MockitoExtension.class)
 class BookingServiceTest {
 	
 	@Mock
-	BookingRepository bookingRepository;
+	BookingStore bookingRepository;
+	
+	@Spy
+	AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+	
+	@Spy
+	BookingQueryCache bookingQueryCache = new BookingQueryCache();
+	
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	
+	@Spy
+	BookingMetrics bookingMetrics = new BookingMetrics(meterRegistry);
+	
+	@Mock
+	ApplicationEventPublisher applicationEventPublisher;
+	
+	BookingHolds bookingHolds = new BookingHolds(meterRegistry);
 	
 	@InjectMocks
 	BookingServiceImpl bookingService;
@@ -42,6 +82,12 @@ class BookingServiceTest {
 		listOfBookings.add(new Booking ("Henrique", LocalDate.now().plusDays(2) , LocalDate.now().plusDays(4)));
 		listOfBookings.add(new Booking ("Romano", LocalDate.now().plusDays(5), LocalDate.now().plusDays(7)));	
 		booking =          new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		availabilityIndex.addRoom(1l, 1l);
+		availabilityIndex.addRoom(2l, 1l);
+		ReflectionTestUtils.setField(bookingService, "clock", Clock.systemDefaultZone());
+		ReflectionTestUtils.setField(bookingHolds, "availabilityIndex", availabilityIndex);
+		ReflectionTestUtils.setField(bookingHolds, "applicationEventPublisher", applicationEventPublisher);
+		ReflectionTestUtils.setField(bookingService, "bookingHolds", bookingHolds);
 	}
 
 	
@@ -60,6 +106,31 @@ class BookingServiceTest {
 		assertEquals(listOfBookings, result);
 	}
 	
+	@Test
+	void testCheckBookingsByDateIsCachedUntilOverlappingBookingIsCreated() {
+		//Setup
+		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(4), LocalDate.now().plusDays(6))).thenReturn(listOfBookings);
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId((long) savedBooking.getStartDate().getDayOfYear());
+			return savedBooking;
+		});
+		Booking check = new Booking ("Test", LocalDate.now().plusDays(4), LocalDate.now().plusDays(6));
+		
+	    //Execute
+		bookingService.checkBookingsByDate(check);
+		bookingService.checkBookingsByDate(check);
+		bookingService.createBooking(new Booking ("Correia", LocalDate.now().plusDays(9), LocalDate.now().plusDays(10)));
+		bookingService.checkBookingsByDate(check);
+		bookingService.createBooking(new Booking ("Correia", LocalDate.now().plusDays(6), LocalDate.now().plusDays(7)));
+		List<Booking> result = bookingService.checkBookingsByDate(check);
+		
+		//Validate
+		assertEquals(listOfBookings, result);
+		verify(bookingRepository, times(2)).getBookingsByDate(LocalDate.now().plusDays(4), LocalDate.now().plusDays(6));
+		assertEquals(2l, bookingQueryCache.stats().get("bookingsByDate").get("hits"));
+	}
+	
 	@Test
 	void testCheckBookingsByDateWithNullStartDateShouldFail() {
 	    //Execute and validate
@@ -103,12 +174,97 @@ class BookingServiceTest {
 	}
 
 	
+	@Test
+	void testReturnBookingsPage() {
+		//Setup
+		when(bookingRepository.getBookingsAfterId(5l, PageRequest.of(0, 2))).thenReturn(listOfBookings);
+			
+	    //Execute
+		List<Booking> result = bookingService.returnBookingsPage(5l, 2);
+		
+		//Validate
+		assertNotNull(result);
+		assertEquals(listOfBookings, result);
+	}
+	
+	@Test
+	void testReturnBookingsPageWithDefaultValues() {
+		//Setup
+		when(bookingRepository.getBookingsAfterId(0l, PageRequest.of(0, 100))).thenReturn(listOfBookings);
+			
+	    //Execute
+		List<Booking> result = bookingService.returnBookingsPage(null, null);
+		
+		//Validate
+		assertEquals(listOfBookings, result);
+	}
+	
+	@Test
+	void testReturnBookingsPageWithLimitTooHighShouldFail() {
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.returnBookingsPage(null, 1001);
+	    });
+	    assertTrue((exception.getMessage()).contains("limit must be between 1 and 1000"));
+	}
+
+	
+	@Test
+	void testReturnAvailabilityCalendar() {
+		//Setup
+		Booking existingBooking = new Booking ("Romano", 1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		existingBooking.setId(1l);
+		availabilityIndex.put(existingBooking);
+		
+	    //Execute
+		Map<LocalDate, Boolean> result = bookingService.returnAvailabilityCalendar(null);
+		
+		//Validate
+		assertEquals(32, result.size());
+		assertEquals(LocalDate.now().plusDays(1), result.keySet().iterator().next());
+		assertTrue(result.get(LocalDate.now().plusDays(1)));
+		assertFalse(result.get(LocalDate.now().plusDays(2)));
+		assertFalse(result.get(LocalDate.now().plusDays(4)));
+		assertTrue(result.get(LocalDate.now().plusDays(5)));
+		assertTrue(result.get(LocalDate.now().plusDays(32)));
+	}
+	
+	@Test
+	void testReturnAvailabilityCalendarOfRoom() {
+		//Setup
+		Booking bookingInRoom1 = new Booking ("Romano", 1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		bookingInRoom1.setId(1l);
+		availabilityIndex.put(bookingInRoom1);
+		Booking bookingInRoom2 = new Booking ("Henrique", 2l, LocalDate.now().plusDays(6), LocalDate.now().plusDays(7));
+		bookingInRoom2.setId(2l);
+		availabilityIndex.put(bookingInRoom2);
+		
+	    //Execute
+		Map<LocalDate, Boolean> result = bookingService.returnAvailabilityCalendar(2l);
+		
+		//Validate
+		assertEquals(32, result.size());
+		assertTrue(result.get(LocalDate.now().plusDays(2)));
+		assertTrue(result.get(LocalDate.now().plusDays(4)));
+		assertFalse(result.get(LocalDate.now().plusDays(6)));
+		assertFalse(result.get(LocalDate.now().plusDays(7)));
+		assertTrue(result.get(LocalDate.now().plusDays(8)));
+	}
+	
+	@Test
+	void testReturnAvailabilityCalendarOfUnknownRoomShouldFail() {
+	    //Execute and validate
+	    ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.returnAvailabilityCalendar(3l);
+	    });
+	    assertEquals(HttpStatus.NOT_FOUND, exception.getStatus());
+	}
+	
 	@Test
 	void testCreateBookingWithEmptyBookingList() {
 		//Setup
 		Booking savedBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
 		savedBooking.setId(1l);
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2))).thenReturn(Collections.<Booking>emptyList());
 		when(bookingRepository.save(booking)).thenReturn(savedBooking);
 		
 	    //Execute
@@ -128,7 +284,6 @@ class BookingServiceTest {
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
 		Booking savedBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
 		savedBooking.setId(1l);
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3))).thenReturn(Collections.<Booking>emptyList());
 		when(bookingRepository.save(newBooking)).thenReturn(savedBooking);
 				
 	    //Execute
@@ -148,7 +303,6 @@ class BookingServiceTest {
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(30), LocalDate.now().plusDays(32));
 		Booking savedBooking = new Booking ("Correia", LocalDate.now().plusDays(30), LocalDate.now().plusDays(32));
 		savedBooking.setId(1l);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(30), LocalDate.now().plusDays(32))).thenReturn(Collections.<Booking>emptyList());
 		when(bookingRepository.save(newBooking)).thenReturn(savedBooking);
 				
 	    //Execute
@@ -168,7 +322,6 @@ class BookingServiceTest {
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(1));
 		Booking savedBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(1));
 		savedBooking.setId(1l);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(1), LocalDate.now().plusDays(1))).thenReturn(Collections.<Booking>emptyList());
 		when(bookingRepository.save(newBooking)).thenReturn(savedBooking);
 				
 	    //Execute
@@ -182,6 +335,27 @@ class BookingServiceTest {
 		assertEquals(savedBooking.getId(), result.getId());
 	}
 	
+	@Test
+	void testCreateBookingPublishesOccupiedDays() {
+		//Setup
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId(1l);
+			return savedBooking;
+		});
+		ArgumentCaptor<AvailabilityChange> change = ArgumentCaptor.forClass(AvailabilityChange.class);
+		
+	    //Execute
+		bookingService.createBooking(new Booking ("Correia", 2l, LocalDate.now().plusDays(3), LocalDate.now().plusDays(4)));
+		
+		//Validate
+		verify(applicationEventPublisher).publishEvent(change.capture());
+		assertFalse(change.getValue().isAvailable());
+		assertEquals(2l, change.getValue().getRoomId());
+		assertEquals(LocalDate.now().plusDays(3), change.getValue().getStartDate());
+		assertEquals(LocalDate.now().plusDays(4), change.getValue().getEndDate());
+	}
+	
 	@Test
 	void testCreateBookingStartingTodayShouldFail() {
 		//Setup
@@ -198,9 +372,8 @@ class BookingServiceTest {
 	void testCreateBookingWithStartDateDuringExistingBookingShouldFail() {
 		//Setup
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(booking);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(2), LocalDate.now().plusDays(4))).thenReturn(listOfExistingBookings);
+		booking.setId(1l);
+		availabilityIndex.put(booking);
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -215,9 +388,7 @@ class BookingServiceTest {
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
 		Booking existingBooking = new Booking ("Romano", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
 		existingBooking.setId(1l);
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(2), LocalDate.now().plusDays(4))).thenReturn(listOfExistingBookings);
+		availabilityIndex.put(existingBooking);
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -226,15 +397,27 @@ class BookingServiceTest {
 	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
 	}
 	
+	@Test
+	void testCreateBookingConflictingOnlyInDatabaseShouldFail() {
+		//Setup
+		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		when(bookingRepository.existsBookingByRoomAndDateIgnoringId(any(), any(), any(), any())).thenReturn(true);
+		
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(newBooking);
+	    });
+	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
+	    assertTrue(availabilityIndex.calendar(1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4)).values().stream().allMatch(free -> free));
+	}
+	
 	@Test
 	void testCreateBookingWithStartDateEqualAsEndDateOfExistingBookingShouldFail() {
 		//Setup
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(4), LocalDate.now().plusDays(5));
 		Booking existingBooking = new Booking ("Romano", LocalDate.now().plusDays(1), LocalDate.now().plusDays(4));
 		existingBooking.setId(1l);
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(4), LocalDate.now().plusDays(5))).thenReturn(listOfExistingBookings);
+		availabilityIndex.put(existingBooking);
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -249,9 +432,7 @@ class BookingServiceTest {
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
 		Booking existingBooking = new Booking ("Romano", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
 		existingBooking.setId(1l);
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2))).thenReturn(listOfExistingBookings);
+		availabilityIndex.put(existingBooking);
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -260,6 +441,69 @@ class BookingServiceTest {
 	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
 	}
 	
+	@Test
+	void testCreateBookingInsideExistingBookingShouldFail() {
+		//Setup
+		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(2), LocalDate.now().plusDays(2));
+		Booking existingBooking = new Booking ("Romano", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
+		existingBooking.setId(1l);
+		availabilityIndex.put(existingBooking);
+		
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(newBooking);
+	    });
+	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
+	}
+	
+	@Test
+	void testCreateBookingInAnotherRoomWithSameDatesAsExistingBooking() {
+		//Setup
+		Booking newBooking = new Booking ("Correia", 2l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		Booking existingBooking = new Booking ("Romano", 1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		existingBooking.setId(1l);
+		availabilityIndex.put(existingBooking);
+		when(bookingRepository.save(newBooking)).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId(2l);
+			return savedBooking;
+		});
+		
+	    //Execute
+		Booking result = bookingService.createBooking(newBooking);
+		
+		//Validate
+		assertEquals(2l, result.getRoomId());
+		assertEquals(List.of(1l), availabilityIndex.findConflicts(1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4), null));
+		assertEquals(List.of(2l), availabilityIndex.findConflicts(2l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4), null));
+	}
+	
+	@Test
+	void testCreateBookingWithoutRoomUsesDefaultRoom() {
+		//Setup
+		Booking newBooking = new Booking ("Correia", null, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		when(bookingRepository.save(newBooking)).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId(1l);
+			return savedBooking;
+		});
+		
+	    //Execute
+		Booking result = bookingService.createBooking(newBooking);
+		
+		//Validate
+		assertEquals(1l, result.getRoomId());
+	}
+	
+	@Test
+	void testCreateBookingForUnknownRoomShouldFail() {
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(new Booking ("Correia", 3l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4)));
+	    });
+	    assertTrue((exception.getMessage()).contains("Room not found: 3"));
+	}
+	
 	@Test
 	void testCreateBookingWithNullNameShouldFail() {
 	    //Execute and validate
@@ -314,6 +558,60 @@ class BookingServiceTest {
 	    assertTrue((exception.getMessage()).contains("Stays cannot be longer than 3 days"));
 	}
 	
+	@Test
+	void testCreateBookingRejectionsAreCountedByReason() {
+	    //Execute
+		assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(new Booking ("Test", LocalDate.now().plusDays(1), LocalDate.now().plusDays(4)));
+	    });
+		assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(new Booking (null, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2)));
+	    });
+		
+		//Validate
+		assertEquals(1.0, meterRegistry.get(BookingMetrics.REJECTIONS).tag("reason", "stay_too_long").counter().count());
+		assertEquals(1.0, meterRegistry.get(BookingMetrics.REJECTIONS).tag("reason", "name_missing").counter().count());
+		assertEquals(0.0, meterRegistry.get(BookingMetrics.REJECTIONS).tag("reason", "conflict").counter().count());
+	}
+	
+	@Test
+	void testCreateBookingReportsEveryViolation() {
+	    //Execute
+		BookingRejectedException exception = assertThrows(BookingRejectedException.class, () -> {
+	    	bookingService.createBooking(new Booking (null, 3l, LocalDate.now().minusDays(1), LocalDate.now().plusDays(3)));
+	    });
+		
+		//Validate
+		assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+		assertEquals("Missing value: name; Stays cannot be longer than 3 days; "
+				+ "startDate is invalid: Reservations start at least the next day of booking; Room not found: 3", exception.getReason());
+		assertEquals(4, exception.getViolations().size());
+		assertEquals(0, exception.getStackTrace().length);
+		assertEquals(1.0, meterRegistry.get(BookingMetrics.REJECTIONS).tag("reason", "room_not_found").counter().count());
+	}
+	
+	@Test
+	void testCreateBookingUsesInjectedClock() {
+		//Setup
+		LocalDate today = LocalDate.of(2030, 1, 10);
+		ReflectionTestUtils.setField(bookingService, "clock", Clock.fixed(today.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId(1l);
+			return savedBooking;
+		});
+		
+	    //Execute
+		Booking result = bookingService.createBooking(new Booking ("Test", 1l, today.plusDays(1), today.plusDays(2)));
+		
+		//Validate
+		assertEquals(today.plusDays(1), result.getStartDate());
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(new Booking ("Test", today, today.plusDays(1)));
+	    });
+	    assertTrue((exception.getMessage()).contains("startDate is invalid: Reservations start at least the next day of booking"));
+	}
+	
 	@Test
 	void testCreateBookingWithStartDate31DaysFromNowShouldFail() {
 		//Execute and validate
@@ -324,6 +622,197 @@ class BookingServiceTest {
 	}
 	
 	
+	@Test
+	void testCreateBookings() {
+		//Setup
+		Booking first = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		Booking conflictingWithFirst = new Booking ("Romano", LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+		Booking withoutName = new Booking (null, LocalDate.now().plusDays(5), LocalDate.now().plusDays(6));
+		Booking second = new Booking ("Henrique", LocalDate.now().plusDays(8), LocalDate.now().plusDays(10));
+		when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> {
+			List<Booking> savedBookings = new ArrayList<Booking>();
+			long id = 1;
+			for(Booking booking : invocation.<Iterable<Booking>>getArgument(0)) {
+				booking.setId(id++);
+				savedBookings.add(booking);
+			}
+			return savedBookings;
+		});
+		
+	    //Execute
+		List<BookingResult> result = bookingService.createBookings(List.of(first, conflictingWithFirst, withoutName, second));
+		
+		//Validate
+		assertEquals(4, result.size());
+		assertEquals(BookingResult.Status.ACCEPTED, result.get(0).getStatus());
+		assertEquals(1l, result.get(0).getBooking().getId());
+		assertEquals(BookingResult.Status.REJECTED, result.get(1).getStatus());
+		assertTrue(result.get(1).getReason().contains("Dates chosen conflict with existing bookings"));
+		assertEquals(BookingResult.Status.REJECTED, result.get(2).getStatus());
+		assertEquals("Missing value: name", result.get(2).getReason());
+		assertEquals(BookingResult.Status.ACCEPTED, result.get(3).getStatus());
+		assertEquals(3, result.get(3).getIndex());
+		assertEquals(2l, result.get(3).getBooking().getId());
+		assertEquals(List.of(1l), availabilityIndex.findConflicts(1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(3), null));
+	}
+	
+	@Test
+	void testCreateBookingsReadsStoredBookingsOncePerRoom() {
+		//Setup
+		Booking firstInRoom1 = new Booking ("Correia", 1l, LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		Booking secondInRoom1 = new Booking ("Romano", 1l, LocalDate.now().plusDays(8), LocalDate.now().plusDays(9));
+		Booking inRoom2 = new Booking ("Henrique", 2l, LocalDate.now().plusDays(4), LocalDate.now().plusDays(5));
+		Booking stored = new Booking ("Stored", 1l, LocalDate.now().plusDays(9), LocalDate.now().plusDays(10));
+		stored.setId(40l);
+		when(bookingRepository.getBookingsByRoomAndDateIgnoringId(1l, LocalDate.now().plusDays(1), LocalDate.now().plusDays(9), 0l)).thenReturn(List.of(stored));
+		when(bookingRepository.getBookingsByRoomAndDateIgnoringId(2l, LocalDate.now().plusDays(4), LocalDate.now().plusDays(5), 0l)).thenReturn(List.of());
+		when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> {
+			List<Booking> savedBookings = new ArrayList<Booking>();
+			long id = 1;
+			for(Booking booking : invocation.<Iterable<Booking>>getArgument(0)) {
+				booking.setId(id++);
+				savedBookings.add(booking);
+			}
+			return savedBookings;
+		});
+		
+	    //Execute
+		List<BookingResult> result = bookingService.createBookings(List.of(secondInRoom1, inRoom2, firstInRoom1));
+		
+		//Validate
+		assertEquals(BookingResult.Status.REJECTED, result.get(0).getStatus());
+		assertTrue(result.get(0).getReason().contains("[40]"));
+		assertEquals(BookingResult.Status.ACCEPTED, result.get(1).getStatus());
+		assertEquals(BookingResult.Status.ACCEPTED, result.get(2).getStatus());
+		verify(bookingRepository, times(2)).getBookingsByRoomAndDateIgnoringId(any(), any(), any(), any());
+		verify(bookingRepository, never()).existsBookingByRoomAndDateIgnoringId(any(), any(), any(), any());
+		assertTrue(availabilityIndex.findConflicts(1l, LocalDate.now().plusDays(8), LocalDate.now().plusDays(8), null).isEmpty());
+	}
+	
+	@Test
+	void testCreateBookingsKeepsClaimsUntilCommit() {
+		//Setup
+		Booking first = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		when(bookingRepository.saveAllAndFlush(any())).thenAnswer(invocation -> {
+			List<Booking> savedBookings = new ArrayList<Booking>();
+			for(Booking booking : invocation.<Iterable<Booking>>getArgument(0)) {
+				booking.setId(1l);
+				savedBookings.add(booking);
+			}
+			return savedBookings;
+		});
+		
+	    //Execute
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			bookingService.createBookings(List.of(first));
+			//Still held by the claim, not by the booking, until the batch commits
+			List<Long> owners = availabilityIndex.findConflicts(1l, first.getStartDate(), first.getEndDate(), null);
+			assertEquals(1, owners.size());
+			assertTrue(owners.get(0)<0);
+			for(TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		//Validate
+		assertTrue(availabilityIndex.findConflicts(1l, first.getStartDate(), first.getEndDate(), null).isEmpty());
+	}
+	
+	@Test
+	void testCreateBookingsWithEmptyListShouldFail() {
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBookings(new ArrayList<Booking>());
+	    });
+	    assertTrue((exception.getMessage()).contains("Missing value: bookings"));
+	}
+	
+	
+	@Test
+	void testHoldBookingBlocksOverlappingBookings() {
+	    //Execute
+		BookingHold hold = bookingService.holdBooking(booking, 10);
+		
+		//Validate
+		assertNotNull(hold.getId());
+		assertEquals(1l, hold.getRoomId());
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.createBooking(new Booking ("Romano", LocalDate.now().plusDays(2), LocalDate.now().plusDays(3)));
+	    });
+	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
+		assertFalse(bookingService.returnAvailabilityCalendar(1l).get(LocalDate.now().plusDays(1)));
+	}
+	
+	@Test
+	void testHoldBookingLongerThan30MinutesShouldFail() {
+	    //Execute and validate
+	    ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.holdBooking(booking, 31);
+	    });
+	    assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+	    assertTrue(availabilityIndex.findConflicts(1l, booking.getStartDate(), booking.getEndDate(), null).isEmpty());
+	}
+	
+	@Test
+	void testConfirmHoldTakesOverTheClaimWithoutCheckingAgain() {
+		//Setup
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			savedBooking.setId(7l);
+			return savedBooking;
+		});
+		BookingHold hold = bookingService.holdBooking(booking, 10);
+		
+	    //Execute
+		Booking result = bookingService.confirmHold(hold.getId());
+		
+		//Validate
+		assertEquals(7l, result.getId());
+		assertEquals("Correia", result.getName());
+		verify(bookingRepository, times(1)).existsBookingByRoomAndDateIgnoringId(any(), any(), any(), any());
+		assertEquals(List.of(7l), availabilityIndex.findConflicts(1l, booking.getStartDate(), booking.getEndDate(), null));
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.confirmHold(hold.getId());
+	    });
+	    assertTrue((exception.getMessage()).contains("Hold not found or expired"));
+	}
+	
+	@Test
+	void testReleaseHoldFreesTheDays() {
+		//Setup
+		BookingHold hold = bookingService.holdBooking(booking, 10);
+		
+	    //Execute
+		bookingService.releaseHold(hold.getId());
+		
+		//Validate
+		assertTrue(availabilityIndex.findConflicts(1l, booking.getStartDate(), booking.getEndDate(), null).isEmpty());
+		verify(bookingRepository, never()).save(any());
+	}
+	
+	@Test
+	void testExpiredHoldsAreReleased() {
+		//Setup
+		Long claimId = availabilityIndex.newClaimId();
+		availabilityIndex.claim(1l, booking.getStartDate(), booking.getEndDate(), claimId);
+		BookingHold expiredHold = new BookingHold(claimId, new Booking ("Correia", 1l, booking.getStartDate(), booking.getEndDate()), Instant.now(), Duration.ZERO);
+		bookingHolds.add(expiredHold);
+		BookingHold hold = bookingService.holdBooking(new Booking ("Romano", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6)), 10);
+		
+	    //Execute
+		int result = bookingHolds.expireDueHolds();
+		
+		//Validate
+		assertEquals(1, result);
+		assertTrue(availabilityIndex.findConflicts(1l, booking.getStartDate(), booking.getEndDate(), null).isEmpty());
+		assertFalse(availabilityIndex.findConflicts(1l, hold.getStartDate(), hold.getEndDate(), null).isEmpty());
+		assertNull(bookingHolds.take(expiredHold.getId()));
+		assertEquals(1.0, meterRegistry.counter(BookingHolds.EXPIRED).count());
+	}
+	
 	@Test
 	void testCancelBooking() {
 	    //Execute
@@ -333,6 +822,67 @@ class BookingServiceTest {
 		verify(bookingRepository, times(1)).deleteById(1l);
 	}
 	
+	@Test
+	void testCancelBookingInvalidatesOverlappingDates() {
+		//Setup
+		Booking check = new Booking ("Test", LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+		when(bookingRepository.getBookingsByDate(check.getStartDate(), check.getEndDate())).thenReturn(listOfBookings);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(booking));
+		
+	    //Execute
+		bookingService.checkBookingsByDate(check);
+		bookingService.checkBookingsByDate(check);
+		bookingService.cancelBooking("1");
+		bookingService.checkBookingsByDate(check);
+		
+		//Validate
+		verify(bookingRepository, times(2)).getBookingsByDate(check.getStartDate(), check.getEndDate());
+	}
+	
+	@Test
+	void testCancelBookingInTransactionInvalidatesAfterCommit() {
+		//Setup
+		Booking check = new Booking ("Test", LocalDate.now().plusDays(2), LocalDate.now().plusDays(3));
+		when(bookingRepository.getBookingsByDate(check.getStartDate(), check.getEndDate())).thenReturn(listOfBookings);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(booking));
+		
+	    //Execute
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			bookingService.checkBookingsByDate(check);
+			bookingService.cancelBooking("1");
+			//Not committed yet, so the cached bookings are still the ones readers see
+			bookingService.checkBookingsByDate(check);
+			verify(bookingRepository, times(1)).getBookingsByDate(check.getStartDate(), check.getEndDate());
+			for(TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+				synchronization.afterCommit();
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		bookingService.checkBookingsByDate(check);
+		
+		//Validate
+		verify(bookingRepository, times(2)).getBookingsByDate(check.getStartDate(), check.getEndDate());
+	}
+	
+	@Test
+	void testCancelBookingPublishesFreedDays() {
+		//Setup
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(booking));
+		ArgumentCaptor<AvailabilityChange> change = ArgumentCaptor.forClass(AvailabilityChange.class);
+		
+	    //Execute
+		bookingService.cancelBooking("1");
+		
+		//Validate
+		verify(applicationEventPublisher).publishEvent(change.capture());
+		assertTrue(change.getValue().isAvailable());
+		assertEquals(1l, change.getValue().getRoomId());
+		assertEquals(booking.getStartDate(), change.getValue().getStartDate());
+		assertEquals(booking.getEndDate(), change.getValue().getEndDate());
+	}
+	
 	
 	
 	@Test
@@ -344,10 +894,7 @@ class BookingServiceTest {
 		Booking updatedBooking = new Booking("New Name", LocalDate.now().plusDays(15), LocalDate.now().plusDays(17));
 		updatedBooking.setId(1l);
 	
-		when(bookingRepository.getReferenceById(1l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(
-				LocalDate.now().plusDays(15), LocalDate.now().plusDays(17), 1l))
-				.thenReturn(Collections.<Booking>emptyList());
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -361,6 +908,45 @@ class BookingServiceTest {
 		assertEquals(updatedBooking.getId(), result.getId());
 	}
 	
+	@Test
+	void testUpdateBookingPublishesFreedAndOccupiedDays() {
+		//Setup
+		Booking previousBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		previousBooking.setId(1l);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
+		when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		ArgumentCaptor<AvailabilityChange> changes = ArgumentCaptor.forClass(AvailabilityChange.class);
+		
+	    //Execute
+		bookingService.updateBooking("1", new Booking(null, 2l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(3)));
+		
+		//Validate
+		verify(applicationEventPublisher, times(2)).publishEvent(changes.capture());
+		AvailabilityChange freed = changes.getAllValues().get(0);
+		AvailabilityChange occupied = changes.getAllValues().get(1);
+		assertTrue(freed.isAvailable());
+		assertEquals(1l, freed.getRoomId());
+		assertEquals(LocalDate.now().plusDays(1), freed.getStartDate());
+		assertFalse(occupied.isAvailable());
+		assertEquals(2l, occupied.getRoomId());
+		assertEquals(LocalDate.now().plusDays(3), occupied.getEndDate());
+	}
+	
+	@Test
+	void testUpdateBookingPassingOnlyNamePublishesNothing() {
+		//Setup
+		Booking previousBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		previousBooking.setId(1l);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
+		when(bookingRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		
+	    //Execute
+		bookingService.updateBooking("1", new Booking("New Name", null, null, null));
+		
+		//Validate
+		verify(applicationEventPublisher, never()).publishEvent(any(Object.class));
+	}
+	
 	@Test
 	void testUpdateBookingPassingOnlyName() {
 		//Setup
@@ -370,10 +956,7 @@ class BookingServiceTest {
 		Booking updatedBooking = new Booking("New Name", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
 		updatedBooking.setId(1l);
 	
-		when(bookingRepository.getReferenceById(1l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(
-				LocalDate.now().plusDays(1), LocalDate.now().plusDays(2), 1l))
-				.thenReturn(Collections.<Booking>emptyList());
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -396,10 +979,7 @@ class BookingServiceTest {
 		Booking updatedBooking = new Booking("Correia", LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
 		updatedBooking.setId(2l);
 	
-		when(bookingRepository.getReferenceById(2l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(
-				LocalDate.now().plusDays(2), LocalDate.now().plusDays(4), 2l))
-				.thenReturn(Collections.<Booking>emptyList());
+		when(bookingRepository.findById(2l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -422,9 +1002,7 @@ class BookingServiceTest {
 		Booking updatedBooking = new Booking("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
 		updatedBooking.setId(2l);
 	
-		when(bookingRepository.getReferenceById(2l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2), 2l))
-				.thenReturn(Collections.<Booking>emptyList());
+		when(bookingRepository.findById(2l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -448,14 +1026,9 @@ class BookingServiceTest {
 		Booking newBooking = new Booking (null, LocalDate.now().plusDays(4), null);
 		Booking updatedBooking = new Booking ("Correia", LocalDate.now().plusDays(4), LocalDate.now().plusDays(6));
 		updatedBooking.setId(1l);
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);
-		
-		when(bookingRepository.getReferenceById(2l)).thenReturn(previousBooking);
-		lenient().when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(3), LocalDate.now().plusDays(6), 1l))
-				.thenReturn(listOfExistingBookings);
-		when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(4), LocalDate.now().plusDays(6), 1l))
-				.thenReturn(Collections.<Booking>emptyList());
+		availabilityIndex.put(existingBooking);
+		
+		when(bookingRepository.findById(2l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -479,14 +1052,9 @@ class BookingServiceTest {
 		Booking newBooking = new Booking (null, LocalDate.now().plusDays(6), LocalDate.now().plusDays(7));
 		Booking updatedBooking = new Booking ("Correia", LocalDate.now().plusDays(6), LocalDate.now().plusDays(7));
 		updatedBooking.setId(1l);
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);
-		
-		when(bookingRepository.getReferenceById(1l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(6), LocalDate.now().plusDays(7), 1l))
-				.thenReturn(Collections.<Booking>emptyList());
-		lenient().when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(6), LocalDate.now().plusDays(8), 1l))		
-				.thenReturn(listOfExistingBookings);
+		availabilityIndex.put(existingBooking);
+		
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
 		when(bookingRepository.save(updatedBooking)).thenReturn(updatedBooking);
 		
 	    //Execute
@@ -506,11 +1074,9 @@ class BookingServiceTest {
 		Booking previousBooking = new Booking ("Correia", LocalDate.now().plusDays(5), LocalDate.now().plusDays(6));
 		previousBooking.setId(1l);
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(booking);
-		when(bookingRepository.getReferenceById(1l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(1), LocalDate.now().plusDays(3),1l))
-				.thenReturn(listOfExistingBookings);
+		booking.setId(2l);
+		availabilityIndex.put(booking);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -527,11 +1093,8 @@ class BookingServiceTest {
 		Booking existingBooking = new Booking ("Romano", LocalDate.now().plusDays(8), LocalDate.now().plusDays(10));
 		existingBooking.setId(2l);
 		Booking newBooking = new Booking (null, null, LocalDate.now().plusDays(8));
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(existingBooking);
-		when(bookingRepository.getReferenceById(1l)).thenReturn(previousBooking);
-		when(bookingRepository.getBookingsByDateIgnoringId(LocalDate.now().plusDays(6), LocalDate.now().plusDays(8),1l))
-				.thenReturn(listOfExistingBookings);
+		availabilityIndex.put(existingBooking);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -540,10 +1103,71 @@ class BookingServiceTest {
 	    assertTrue((exception.getMessage()).contains("Dates chosen conflict with existing bookings"));
 	}
 		
+	@Test
+	void testUpdateBookingWithStaleVersionShouldFail() {
+		//Setup
+		Booking previousBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		previousBooking.setId(1l);
+		previousBooking.setVersion(3l);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
+		
+	    //Execute and validate
+	    ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.updateBooking("1", new Booking("New Name", null, null), 2l);
+	    });
+	    assertEquals(HttpStatus.PRECONDITION_FAILED, exception.getStatus());
+	    verify(bookingRepository, never()).save(any());
+	}
+	
+	@Test
+	void testUpdateBookingIsRetriedAfterConcurrentUpdate() {
+		//Setup
+		Booking staleBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		staleBooking.setId(1l);
+		staleBooking.setVersion(1l);
+		Booking currentBooking = new Booking ("Romano", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		currentBooking.setId(1l);
+		currentBooking.setVersion(2l);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(staleBooking), Optional.of(currentBooking));
+		when(bookingRepository.save(any())).thenAnswer(invocation -> {
+			Booking savedBooking = invocation.getArgument(0);
+			if(savedBooking.getVersion()==1l) {
+				throw new ObjectOptimisticLockingFailureException(Booking.class, 1l);
+			}
+			return savedBooking;
+		});
+		
+	    //Execute
+		Booking result = bookingService.updateBooking("1", new Booking(null, null, LocalDate.now().plusDays(3)));
+		
+		//Validate
+		assertEquals("Romano", result.getName());
+		assertEquals(LocalDate.now().plusDays(3), result.getEndDate());
+		verify(bookingRepository, times(2)).save(any());
+		assertEquals(1.0, meterRegistry.get(BookingMetrics.UPDATE_RETRIES).counter().count());
+		assertEquals(List.of(1l), availabilityIndex.findConflicts(1l, LocalDate.now().plusDays(1), LocalDate.now().plusDays(3), null));
+	}
+	
+	@Test
+	void testUpdateBookingWithConcurrentUpdatesOnEveryAttemptShouldFail() {
+		//Setup
+		Booking previousBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
+		previousBooking.setId(1l);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(previousBooking));
+		when(bookingRepository.save(any())).thenThrow(new ObjectOptimisticLockingFailureException(Booking.class, 1l));
+		
+	    //Execute and validate
+	    ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> {
+	    	bookingService.updateBooking("1", new Booking("New Name", null, null));
+	    });
+	    assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+	    verify(bookingRepository, times(3)).save(any());
+	}
+	
 	@Test
 	void testUpdateBookingWithStartDateIsHigherThanEndDateShouldFail() {
 		//Setup
-		when(bookingRepository.getReferenceById(1l)).thenReturn(booking);
+		when(bookingRepository.findById(1l)).thenReturn(Optional.of(booking));
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
@@ -556,9 +1180,8 @@ class BookingServiceTest {
 	void testUpdateBookingWithSameDatesAsExistingBookingShouldFail() {		
 		//Setup
 		Booking newBooking = new Booking ("Correia", LocalDate.now().plusDays(1), LocalDate.now().plusDays(2));
-		List<Booking> listOfExistingBookings = new ArrayList<Booking>();
-		listOfExistingBookings.add(booking);		
-		when(bookingRepository.getBookingsByDate(LocalDate.now().plusDays(1), LocalDate.now().plusDays(2))).thenReturn(listOfExistingBookings);
+		booking.setId(1l);
+		availabilityIndex.put(booking);
 		
 	    //Execute and validate
 	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
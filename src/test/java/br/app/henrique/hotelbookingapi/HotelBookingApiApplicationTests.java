@@ -1,13 +1,46 @@
 package br.app.henrique.hotelbookingapi;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 
 @SpringBootTest
+@AutoConfigureMockMvc
 class HotelBookingApiApplicationTests {
 
+	@Autowired
+	MockMvc mockMvc;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void testActuatorEndpointsAreMapped() throws Exception {
+	    //Execute
+		ResultActions result = mockMvc.perform(get("/actuator/health"));
+
+		//Validate
+		result.andExpect(status().isOk())
+			.andExpect(jsonPath("$.status").value("UP"));
+	}
+
+	@Test
+	void testApiDocsOnlyDocumentTheApi() throws Exception {
+	    //Execute
+		ResultActions result = mockMvc.perform(get("/v2/api-docs"));
+
+		//Validate
+		result.andExpect(status().isOk())
+			.andExpect(jsonPath("$.paths['/booking/all']").exists())
+			.andExpect(jsonPath("$.paths['/actuator/health']").doesNotExist());
+	}
+
 }
@@ -0,0 +1,120 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.Room;
+import br.app.henrique.hotelbookingapi.repository.HotelRepository;
+import br.app.henrique.hotelbookingapi.repository.RoomRepository;
+import br.app.henrique.hotelbookingapi.service.impl.HotelServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+class HotelServiceTest {
+	
+	@Mock
+	HotelRepository hotelRepository;
+	
+	@Mock
+	RoomRepository roomRepository;
+	
+	@Spy
+	AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+	
+	@InjectMocks
+	HotelServiceImpl hotelService;
+	
+	List<Room> rooms;
+	
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		rooms = new ArrayList<Room>();
+		for(long id = 1; id <= 4; id++) {
+			Room room = new Room("10" + id, id <= 2 ? 1l : 2l);
+			room.setId(id);
+			rooms.add(room);
+			availabilityIndex.addRoom(room.getId(), room.getHotelId());
+		}
+	}
+	
+	@Test
+	void testFindFreeRooms() {
+		//Setup
+		Booking booking = new Booking("Correia", 1l, LocalDate.now().plusDays(2), LocalDate.now().plusDays(4));
+		booking.setId(1l);
+		availabilityIndex.put(booking);
+		Booking otherBooking = new Booking("Romano", 3l, LocalDate.now().plusDays(4), LocalDate.now().plusDays(5));
+		otherBooking.setId(2l);
+		availabilityIndex.put(otherBooking);
+		when(roomRepository.findAllById(List.of(2l, 4l))).thenReturn(new ArrayList<Room>(List.of(rooms.get(3), rooms.get(1))));
+		
+	    //Execute
+		List<Room> result = hotelService.findFreeRooms(null, LocalDate.now().plusDays(3), LocalDate.now().plusDays(4), null);
+		
+		//Validate
+		assertEquals(List.of(rooms.get(1), rooms.get(3)), result);
+	}
+	
+	@Test
+	void testFindFreeRoomsInHotelWithLimit() {
+		//Setup
+		when(roomRepository.findAllById(List.of(3l))).thenReturn(new ArrayList<Room>(List.of(rooms.get(2))));
+		
+	    //Execute
+		List<Room> result = hotelService.findFreeRooms(2l, LocalDate.now().plusDays(3), LocalDate.now().plusDays(4), 1);
+		
+		//Validate
+		assertEquals(List.of(rooms.get(2)), result);
+	}
+	
+	@Test
+	void testFindFreeRoomsWithStartDateIsHigherThanEndDateShouldFail() {
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	hotelService.findFreeRooms(null, LocalDate.now().plusDays(4), LocalDate.now().plusDays(3), null);
+	    });
+	    assertTrue((exception.getMessage()).contains("startDate cannot be higher than endDate"));
+	}
+	
+	@Test
+	void testCreateRoomInUnknownHotelShouldFail() {
+		//Setup
+		when(hotelRepository.existsById(3l)).thenReturn(false);
+		
+	    //Execute and validate
+	    Exception exception = assertThrows(ResponseStatusException.class, () -> {
+	    	hotelService.createRoom(3l, new Room("301", null));
+	    });
+	    assertTrue((exception.getMessage()).contains("Hotel not found: 3"));
+	}
+	
+	@Test
+	void testCreateRoomIsAddedToAvailabilityIndex() {
+		//Setup
+		Room savedRoom = new Room("201", 2l);
+		savedRoom.setId(5l);
+		when(hotelRepository.existsById(2l)).thenReturn(true);
+		when(roomRepository.save(new Room("201", 2l))).thenReturn(savedRoom);
+		
+	    //Execute
+		Room result = hotelService.createRoom(2l, new Room("201", null));
+		
+		//Validate
+		assertEquals(savedRoom, result);
+		assertTrue(availabilityIndex.hasRoom(5l));
+	}
+}
@@ -0,0 +1,124 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import br.app.henrique.hotelbookingapi.controller.IdempotentRequestStore;
+
+class IdempotentRequestStoreTest {
+
+	IdempotentRequestStore idempotentRequestStore;
+	AtomicInteger executions;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		idempotentRequestStore = new IdempotentRequestStore(new SimpleMeterRegistry(), 100, 60);
+		executions = new AtomicInteger();
+	}
+
+	@Test
+	void testReplayReturnsFirstResponseWithoutExecutingAgain() {
+		//Setup
+		idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("first"));
+
+	    //Execute
+		ResponseEntity<String> result = idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("second")).join();
+
+		//Validate
+		assertEquals(1, executions.get());
+		assertEquals(HttpStatus.CREATED, result.getStatusCode());
+		assertEquals("first", result.getBody());
+		assertEquals("true", result.getHeaders().getFirst(IdempotentRequestStore.IDEMPOTENT_REPLAYED));
+	}
+
+	@Test
+	void testReplayWaitsForRequestInProgress() {
+		//Setup
+		CompletableFuture<ResponseEntity<String>> inProgress = new CompletableFuture<>();
+		idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> inProgress);
+
+	    //Execute
+		CompletableFuture<ResponseEntity<String>> result = idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("second"));
+
+		//Validate
+		assertFalse(result.isDone());
+		inProgress.complete(ResponseEntity.status(HttpStatus.CREATED).body("first"));
+		assertEquals("first", result.join().getBody());
+		assertEquals(0, executions.get());
+	}
+
+	@Test
+	void testKeyReusedForDifferentRequestIsRejected() {
+		//Setup
+		idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("first"));
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> idempotentRequestStore.execute("key", List.of("new", "Romano"), () -> created("second")));
+
+		//Validate
+		assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void testClientErrorIsReplayed() {
+		//Setup
+		assertThrows(ResponseStatusException.class, () -> idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> failed(HttpStatus.CONFLICT)));
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("second")));
+
+		//Validate
+		assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void testServerErrorIsNotReplayed() {
+		//Setup
+		assertThrows(ResponseStatusException.class, () -> idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> failed(HttpStatus.SERVICE_UNAVAILABLE)));
+
+	    //Execute
+		ResponseEntity<String> result = idempotentRequestStore.execute("key", List.of("new", "Correia"), () -> created("second")).join();
+
+		//Validate
+		assertEquals("second", result.getBody());
+		assertEquals(2, executions.get());
+	}
+
+	@Test
+	void testRequestsWithoutKeyAreAlwaysExecuted() {
+		//Setup
+		idempotentRequestStore.execute(null, List.of("new", "Correia"), () -> created("first"));
+
+	    //Execute
+		ResponseEntity<String> result = idempotentRequestStore.execute(null, List.of("new", "Correia"), () -> created("second")).join();
+
+		//Validate
+		assertEquals("second", result.getBody());
+		assertEquals(2, executions.get());
+	}
+
+	private CompletableFuture<ResponseEntity<String>> created(String body) {
+		executions.incrementAndGet();
+		return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CREATED).body(body));
+	}
+
+	private CompletableFuture<ResponseEntity<String>> failed(HttpStatus status) {
+		//Thrown like the synchronous request executor does
+		executions.incrementAndGet();
+		throw new ResponseStatusException(status);
+	}
+
+}
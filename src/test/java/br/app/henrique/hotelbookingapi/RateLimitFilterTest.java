@@ -0,0 +1,67 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import br.app.henrique.hotelbookingapi.filter.RateLimitFilter;
+import br.app.henrique.hotelbookingapi.filter.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RateLimitFilterTest {
+
+	RateLimitFilter rateLimitFilter;
+
+	@BeforeEach
+	void setUpBeforeTests() {
+		RateLimitProperties rateLimitProperties = new RateLimitProperties();
+		rateLimitProperties.setEnabled(true);
+		rateLimitProperties.setApiKeys(Set.of("known-key"));
+		rateLimitProperties.setReadsPerSecond(0.001);
+		rateLimitProperties.setReadBurst(1);
+		rateLimitFilter = new RateLimitFilter(rateLimitProperties, new SimpleMeterRegistry());
+	}
+
+	@Test
+	void testKnownApiKeyHasItsOwnBudget() throws Exception {
+		//Setup
+		send(null);
+
+	    //Execute
+		MockHttpServletResponse response = send("known-key");
+
+		//Validate
+		assertEquals(HttpStatus.OK.value(), response.getStatus());
+	}
+
+	@Test
+	void testUnknownApiKeyIsLimitedByAddress() throws Exception {
+		//Setup
+		send("first-unknown-key");
+
+	    //Execute
+		MockHttpServletResponse response = send("second-unknown-key");
+
+		//Validate
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+	}
+
+	private MockHttpServletResponse send(String apiKey) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/booking/all");
+		request.setRemoteAddr("10.0.0.1");
+		if(apiKey!=null) {
+			request.addHeader("X-API-Key", apiKey);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		rateLimitFilter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+}
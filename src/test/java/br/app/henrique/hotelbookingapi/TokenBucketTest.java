@@ -0,0 +1,101 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import br.app.henrique.hotelbookingapi.filter.TokenBucket;
+
+class TokenBucketTest {
+
+	private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	@Test
+	void testBurstIsAllowedThenLimitedToRate() {
+		//Setup
+		TokenBucket tokenBucket = new TokenBucket(10, 3, 0);
+
+	    //Execute
+		long first = tokenBucket.tryTake(0);
+		long second = tokenBucket.tryTake(0);
+		long third = tokenBucket.tryTake(0);
+		long fourth = tokenBucket.tryTake(0);
+
+		//Validate
+		assertEquals(0, first);
+		assertEquals(0, second);
+		assertEquals(0, third);
+		assertEquals(SECOND / 10, fourth);
+	}
+
+	@Test
+	void testTokensAreRefilledOverTime() {
+		//Setup
+		TokenBucket tokenBucket = new TokenBucket(10, 3, 0);
+		for(int i = 0; i < 3; i++) {
+			tokenBucket.tryTake(0);
+		}
+
+	    //Execute
+		long afterOneToken = tokenBucket.tryTake(SECOND / 10);
+		long beforeNextToken = tokenBucket.tryTake(SECOND / 10);
+
+		//Validate
+		assertEquals(0, afterOneToken);
+		assertEquals(SECOND / 10, beforeNextToken);
+	}
+
+	@Test
+	void testIdleBucketNeverHoldsMoreThanCapacity() {
+		//Setup
+		TokenBucket tokenBucket = new TokenBucket(10, 3, 0);
+		int taken = 0;
+
+	    //Execute
+		while(tokenBucket.tryTake(60 * SECOND)==0) {
+			taken++;
+		}
+
+		//Validate
+		assertEquals(3, taken);
+	}
+
+	@Test
+	void testConcurrentTakesNeverExceedCapacity() throws Exception {
+		//Setup
+		TokenBucket tokenBucket = new TokenBucket(1, 1000, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger taken = new AtomicInteger();
+
+	    //Execute
+		for(int i = 0; i < 8; i++) {
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for(int j = 0; j < 500; j++) {
+					if(tokenBucket.tryTake(0)==0) {
+						taken.incrementAndGet();
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+		//Validate
+		assertEquals(1000, taken.get());
+	}
+
+}
@@ -0,0 +1,245 @@
+package br.app.henrique.hotelbookingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import br.app.henrique.hotelbookingapi.availability.AvailabilityIndex;
+import br.app.henrique.hotelbookingapi.metrics.RejectionReason;
+import br.app.henrique.hotelbookingapi.model.Booking;
+import br.app.henrique.hotelbookingapi.model.WaitlistEntry;
+import br.app.henrique.hotelbookingapi.repository.WaitlistRepository;
+import br.app.henrique.hotelbookingapi.service.BookingService;
+import br.app.henrique.hotelbookingapi.service.impl.WaitlistServiceImpl;
+import br.app.henrique.hotelbookingapi.validation.BookingRejectedException;
+import br.app.henrique.hotelbookingapi.validation.ValidationResult;
+
+@ExtendWith(MockitoExtension.class)
+class WaitlistServiceTest {
+
+	@Mock
+	WaitlistRepository waitlistRepository;
+
+	@Mock
+	BookingService bookingService;
+
+	AvailabilityIndex availabilityIndex;
+
+	SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	WaitlistServiceImpl waitlistService;
+
+	Clock clock = Clock.fixed(LocalDate.of(2030, 1, 1).atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault());
+
+	Booking booking;
+
+	@BeforeEach
+	void setUpBeforeTests() throws Exception {
+		availabilityIndex = new AvailabilityIndex();
+		availabilityIndex.addRoom(1l, 1l);
+		waitlistService = new WaitlistServiceImpl(meterRegistry);
+		ReflectionTestUtils.setField(waitlistService, "waitlistRepository", waitlistRepository);
+		ReflectionTestUtils.setField(waitlistService, "bookingService", bookingService);
+		ReflectionTestUtils.setField(waitlistService, "availabilityIndex", availabilityIndex);
+		ReflectionTestUtils.setField(waitlistService, "clock", clock);
+		ReflectionTestUtils.setField(waitlistService, "enabled", true);
+		booking = new Booking("Correia", 1l, LocalDate.of(2030, 1, 5), LocalDate.of(2030, 1, 6));
+	}
+
+	@AfterEach
+	void tearDownAfterTests() {
+		ReflectionTestUtils.invokeMethod(waitlistService, "shutdown");
+	}
+
+	@Test
+	void testJoinWaitlistWithFreeDates() {
+		//Setup
+		Booking createdBooking = new Booking("Correia", 1l, LocalDate.of(2030, 1, 5), LocalDate.of(2030, 1, 6));
+		createdBooking.setId(10l);
+		when(bookingService.createBooking(booking)).thenReturn(createdBooking);
+		when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+	    //Execute
+		WaitlistEntry result = waitlistService.joinWaitlist(booking);
+
+		//Validate
+		assertEquals(WaitlistEntry.Status.PROMOTED, result.getStatus());
+		assertEquals(10l, result.getBookingId());
+	}
+
+	@Test
+	void testJoinWaitlistWithTakenDates() {
+		//Setup
+		when(bookingService.createBooking(booking)).thenThrow(conflict());
+		when(waitlistRepository.save(any(WaitlistEntry.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+	    //Execute
+		WaitlistEntry result = waitlistService.joinWaitlist(booking);
+
+		//Validate
+		assertEquals(WaitlistEntry.Status.WAITING, result.getStatus());
+		assertNull(result.getBookingId());
+		assertEquals(LocalDateTime.of(2030, 1, 1, 0, 0), result.getCreatedAt());
+	}
+
+	@Test
+	void testJoinWaitlistWithInvalidBooking() {
+		//Setup
+		BookingRejectedException rejection = new ValidationResult()
+				.reject(RejectionReason.STAY_TOO_LONG, HttpStatus.BAD_REQUEST, "Booking cannot be longer than 3 days").toException();
+		when(bookingService.createBooking(booking)).thenThrow(rejection);
+
+	    //Execute
+		BookingRejectedException exception = assertThrows(BookingRejectedException.class, () -> waitlistService.joinWaitlist(booking));
+
+		//Validate
+		assertSame(rejection, exception);
+		verify(waitlistRepository, never()).save(any(WaitlistEntry.class));
+	}
+
+	@Test
+	void testPromoteSkipsEntriesStillConflicting() {
+		//Setup
+		Booking remainingBooking = new Booking("Romano", 1l, LocalDate.of(2030, 1, 5), LocalDate.of(2030, 1, 6));
+		remainingBooking.setId(1l);
+		availabilityIndex.put(remainingBooking);
+		WaitlistEntry conflicting = newEntry(1l, booking);
+		WaitlistEntry free = newEntry(2l, new Booking("Henrique", 1l, LocalDate.of(2030, 1, 8), LocalDate.of(2030, 1, 9)));
+		when(waitlistRepository.getEntriesByRoomAndStatusStartingAfter(1l, WaitlistEntry.Status.WAITING, LocalDate.of(2030, 1, 1)))
+				.thenReturn(List.of(conflicting, free));
+		when(waitlistRepository.updateStatus(2l, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.PROMOTED)).thenReturn(1);
+		Booking createdBooking = new Booking("Henrique", 1l, LocalDate.of(2030, 1, 8), LocalDate.of(2030, 1, 9));
+		createdBooking.setId(11l);
+		when(bookingService.createBooking(any(Booking.class))).thenReturn(createdBooking);
+
+	    //Execute
+		int result = waitlistService.promoteWaitingEntries(1l);
+
+		//Validate
+		ArgumentCaptor<Booking> requested = ArgumentCaptor.forClass(Booking.class);
+		verify(bookingService, times(1)).createBooking(requested.capture());
+		assertEquals("Henrique", requested.getValue().getName());
+		assertEquals(1, result);
+		assertEquals(WaitlistEntry.Status.WAITING, conflicting.getStatus());
+		assertEquals(WaitlistEntry.Status.PROMOTED, free.getStatus());
+		assertEquals(11l, free.getBookingId());
+		verify(waitlistRepository, times(1)).save(free);
+		assertEquals(1.0, meterRegistry.counter(WaitlistServiceImpl.PROMOTIONS).count());
+	}
+
+	@Test
+	void testPromoteSkipsEntriesLeftMeanwhile() {
+		//Setup
+		WaitlistEntry left = newEntry(1l, booking);
+		when(waitlistRepository.getEntriesByRoomAndStatusStartingAfter(1l, WaitlistEntry.Status.WAITING, LocalDate.of(2030, 1, 1)))
+				.thenReturn(List.of(left));
+		when(waitlistRepository.updateStatus(1l, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.PROMOTED)).thenReturn(0);
+
+	    //Execute
+		int result = waitlistService.promoteWaitingEntries(1l);
+
+		//Validate
+		assertEquals(0, result);
+		verify(bookingService, never()).createBooking(any(Booking.class));
+		verify(waitlistRepository, never()).save(any(WaitlistEntry.class));
+	}
+
+	@Test
+	void testPromoteReturnsEntryToWaitingWhenDaysWereTaken() {
+		//Setup
+		WaitlistEntry entry = newEntry(1l, booking);
+		when(waitlistRepository.getEntriesByRoomAndStatusStartingAfter(1l, WaitlistEntry.Status.WAITING, LocalDate.of(2030, 1, 1)))
+				.thenReturn(List.of(entry));
+		when(waitlistRepository.updateStatus(1l, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.PROMOTED)).thenReturn(1);
+		when(bookingService.createBooking(any(Booking.class))).thenThrow(conflict());
+
+	    //Execute
+		int result = waitlistService.promoteWaitingEntries(1l);
+
+		//Validate
+		assertEquals(0, result);
+		verify(waitlistRepository).updateStatus(1l, WaitlistEntry.Status.PROMOTED, WaitlistEntry.Status.WAITING);
+		verify(waitlistRepository, never()).save(any(WaitlistEntry.class));
+	}
+
+	@Test
+	void testLeaveWaitlistWhileWaiting() {
+		//Setup
+		WaitlistEntry entry = newEntry(1l, booking);
+		when(waitlistRepository.findById(1l)).thenReturn(Optional.of(entry));
+		when(waitlistRepository.updateStatus(1l, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED)).thenReturn(1);
+
+	    //Execute
+		WaitlistEntry result = waitlistService.leaveWaitlist("1");
+
+		//Validate
+		assertEquals(WaitlistEntry.Status.CANCELLED, result.getStatus());
+	}
+
+	@Test
+	void testLeaveWaitlistClaimedByMatcher() {
+		//Setup
+		WaitlistEntry waiting = newEntry(1l, booking);
+		WaitlistEntry promoted = newEntry(1l, booking);
+		promoted.promote(10l);
+		when(waitlistRepository.findById(1l)).thenReturn(Optional.of(waiting), Optional.of(promoted));
+		when(waitlistRepository.updateStatus(1l, WaitlistEntry.Status.WAITING, WaitlistEntry.Status.CANCELLED)).thenReturn(0);
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> waitlistService.leaveWaitlist("1"));
+
+		//Validate
+		assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+		assertEquals("Waitlist entry is no longer waiting: PROMOTED", exception.getReason());
+	}
+
+	@Test
+	void testLeaveWaitlistAfterPromotion() {
+		//Setup
+		WaitlistEntry entry = new WaitlistEntry(booking, LocalDateTime.now(clock));
+		entry.promote(10l);
+		when(waitlistRepository.findById(1l)).thenReturn(Optional.of(entry));
+
+	    //Execute
+		ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> waitlistService.leaveWaitlist("1"));
+
+		//Validate
+		assertEquals(HttpStatus.CONFLICT, exception.getStatus());
+		verify(waitlistRepository, never()).save(any(WaitlistEntry.class));
+	}
+
+	private WaitlistEntry newEntry(Long id, Booking booking) {
+		WaitlistEntry entry = new WaitlistEntry(booking, LocalDateTime.now(clock));
+		entry.setId(id);
+		return entry;
+	}
+
+	private BookingRejectedException conflict() {
+		return new ValidationResult()
+				.reject(RejectionReason.CONFLICT, HttpStatus.CONFLICT, "Booking conflicts with existing bookings").toException();
+	}
+
+}